@@ -0,0 +1,68 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 임베디드 H2(mem)에 팀 TEAM_COUNT개, 회원 memberCount명을 넣어두고 시작한다.
+ * SQL 로그, p6spy 로그는 측정값을 왜곡하므로 끈다.
+ */
+public class BenchmarkContext {
+
+    public static final int TEAM_COUNT = 10;
+    private static final int FLUSH_SIZE = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(int memberCount, String... args) {
+        String[] defaultArgs = {
+                "--spring.profiles.active=jmh",
+                "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.org.hibernate.type=warn",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false"
+        };
+        String[] allArgs = new String[defaultArgs.length + args.length];
+        System.arraycopy(defaultArgs, 0, allArgs, 0, defaultArgs.length);
+        System.arraycopy(args, 0, allArgs, defaultArgs.length, args.length);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(allArgs);
+        seed(context, memberCount);
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, int memberCount) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.executeWithoutResult(status -> {
+            Long[] teamIds = new Long[TEAM_COUNT];
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                teamIds[i] = team.getId();
+            }
+            for (int i = 0; i < memberCount; i++) {
+                Team team = em.getReference(Team.class, teamIds[i % TEAM_COUNT]);
+                em.persist(new Member("member" + i, i % 100, team));
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        });
+    }
+}
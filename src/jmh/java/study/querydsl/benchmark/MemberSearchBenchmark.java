@@ -0,0 +1,130 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchQueryCache;
+import study.querydsl.repository.MemberSqlSearch;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 검색 구현별 비교
+ * - searchByBUilder (BooleanBuilder)
+ * - MemberJpaRepository.search (where 파라미터, 모양 캐시) / searchRendered (where 파라미터, 매번 JPQL 생성)
+ * - MemberRepositoryImpl.search (QuerydslRepositorySupport)
+ * - JPQL 모양 캐시(MemberSearchQueryCache) vs querydsl-sql(MemberSqlSearch) : 같은 readOnly 트랜잭션 안에서 비교
+ * - 페이징 : searchPageSimple / searchPageComlex / searchByCursor
+ * 요청당 가비지는 -prof gc 결과의 gc.alloc.rate.norm (B/op) 으로 비교
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberSearchBenchmark {
+
+    @Param({"1000", "100000"})
+    int memberCount;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    MemberRepository memberRepository;
+    MemberSearchQueryCache memberSearchQueryCache;
+    MemberSqlSearch memberSqlSearch;
+    TransactionTemplate readOnlyTx;
+
+    MemberSearchCondition condition;
+    PageRequest deepPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(memberCount);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberSearchQueryCache = context.getBean(MemberSearchQueryCache.class);
+        memberSqlSearch = context.getBean(MemberSqlSearch.class);
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(30);
+
+        deepPage = PageRequest.of(memberCount / BenchmarkContext.TEAM_COUNT / 100, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchBooleanBuilder() {
+        return memberJpaRepository.searchByBUilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchWhereParam() {
+        return memberJpaRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchWhereParamRendered() {
+        return memberJpaRepository.searchRendered(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchRepositorySupport() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchJpa() {
+        return readOnlyTx.execute(status -> memberSearchQueryCache.search(condition));
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> searchSql() {
+        return readOnlyTx.execute(status -> memberSqlSearch.search(condition));
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageSimple() {
+        return memberRepository.searchPageSimple(condition, deepPage);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComlex() {
+        return memberRepository.searchPageComlex(condition, deepPage);
+    }
+
+    @Benchmark
+    public MemberSlice searchByCursor() {
+        return memberRepository.searchByCursor(condition, MemberCursor.first(MemberCursor.SortKey.ID), 20);
+    }
+}
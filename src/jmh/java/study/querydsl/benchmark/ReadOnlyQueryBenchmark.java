@@ -0,0 +1,89 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 엔티티 조회 : 쓰기 트랜잭션 + 스냅샷(dirty checking) vs 읽기 전용 (ReadOnlyQueries)
+ * 조회한 Member 당 힙 사용량은 gc 프로파일러의 gc.alloc.rate.norm / LIMIT 로 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyQueryBenchmark {
+
+    private static final int LIMIT = 1000;
+
+    @Param({"1000", "100000"})
+    int memberCount;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate writeTx;
+    TransactionTemplate readOnlyTx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(memberCount);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        writeTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> managed() {
+        return writeTx.execute(status -> queryFactory
+                .selectFrom(member)
+                .limit(LIMIT)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyHint() {
+        return writeTx.execute(status -> queryFactory
+                .selectFrom(member)
+                .setHint(QueryHints.READ_ONLY, true)
+                .limit(LIMIT)
+                .fetch());
+    }
+
+    @Benchmark
+    public List<Member> readOnlyTransaction() {
+        //repository 조회와 같은 readOnly 트랜잭션 (세션 기본 읽기 전용, FlushMode.MANUAL)
+        return readOnlyTx.execute(status -> queryFactory
+                .selectFrom(member)
+                .limit(LIMIT)
+                .fetch());
+    }
+}
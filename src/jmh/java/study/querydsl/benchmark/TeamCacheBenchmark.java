@@ -0,0 +1,108 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * Team 2차 캐시 사용 여부 비교 (QuerydslBasicTest의 fetchJoinNo / fetchJoinUse 패턴)
+ * - lazyTeam : 회원 LIMIT명 조회 후 member.getTeam().getName() (캐시 X 이면 팀 수만큼 select)
+ * - fetchJoin : 조인으로 한번에 조회 (캐시와 무관, 기준값)
+ * - findTeam : em.find(Team)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TeamCacheBenchmark {
+
+    private static final int LIMIT = 100;
+
+    @Param({"1000"})
+    int memberCount;
+
+    @Param({"true", "false"})
+    boolean teamCache;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory queryFactory;
+    EntityManager em;
+    TransactionTemplate tx;
+    Long teamId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(memberCount, "--member.team-cache.enabled=" + teamCache);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        em = context.getBean(EntityManager.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(true);
+        teamId = tx.execute(status -> queryFactory.select(team.id).from(team).limit(1).fetchOne());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int lazyTeam() {
+        return tx.execute(status -> {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .limit(LIMIT)
+                    .fetch();
+            int length = 0;
+            for (Member m : members) {
+                length += m.getTeam().getName().length();
+            }
+            return length;
+        });
+    }
+
+    @Benchmark
+    public int fetchJoin() {
+        return tx.execute(status -> {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .limit(LIMIT)
+                    .fetch();
+            int length = 0;
+            for (Member m : members) {
+                length += m.getTeam().getName().length();
+            }
+            return length;
+        });
+    }
+
+    @Benchmark
+    public String findTeam() {
+        return tx.execute(status -> em.find(Team.class, teamId).getName());
+    }
+}
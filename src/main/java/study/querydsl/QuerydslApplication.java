@@ -4,6 +4,8 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import study.querydsl.repository.InstrumentedJPAQueryFactory;
+import study.querydsl.repository.QueryMetrics;
 
 import javax.persistence.EntityManager;
 
@@ -16,7 +18,8 @@ public class QuerydslApplication {
 
 
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em){
-		return new JPAQueryFactory(em);
+	JPAQueryFactory jpaQueryFactory(EntityManager em, QueryMetrics queryMetrics){
+		//querydsl.metrics.enabled=true 일 때만 쿼리 실행 지표를 기록한다.
+		return queryMetrics.isEnabled() ? new InstrumentedJPAQueryFactory(em, queryMetrics) : new JPAQueryFactory(em);
 	}
 }
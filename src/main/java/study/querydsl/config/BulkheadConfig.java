@@ -0,0 +1,48 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * MemberController 검색 엔드포인트 벌크헤드 (SearchBulkheadInterceptor)
+ * 엔드포인트별 제한의 합은 커넥션 풀보다 클 수 있으므로 전체 커넥션 수(max-connections)도 제한한다.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+@ConditionalOnProperty(name = "member.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig implements WebMvcConfigurer {
+
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public BulkheadConfig(BulkheadProperties properties, MeterRegistry meterRegistry,
+                          @Value("${member.search.parallel-count.enabled:false}") boolean parallelCount,
+                          @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        if (parallelCount) {
+            //컨텐츠/count 쿼리를 별도 커넥션으로 동시에 실행하므로 /v3 요청 하나가 커넥션 2개를 쓴다.
+            BulkheadProperties.Limit v3 = properties.getEndpoints().computeIfAbsent("/v3/members", key -> new BulkheadProperties.Limit());
+            if (v3.getConnections() == null) {
+                v3.setConnections(2);
+            }
+        }
+        if (properties.getMaxConnections() >= poolSize) {
+            log.warn("member.bulkhead.max-connections({})가 커넥션 풀 크기({}) 이상입니다. 검색이 풀을 다 쓸 수 있습니다.",
+                    properties.getMaxConnections(), poolSize);
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SearchBulkheadInterceptor(properties, meterRegistry))
+                .addPathPatterns("/v1/members", "/v2/members", "/v3/members", "/v4/members", "/members/export");
+    }
+}
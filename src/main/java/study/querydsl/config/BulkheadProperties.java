@@ -0,0 +1,35 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.bulkhead")
+public class BulkheadProperties {
+
+    private boolean enabled = true;
+    //엔드포인트별 기본값
+    private int maxConcurrent = 5;
+    private int queueCapacity = 20;
+    private Duration maxWait = Duration.ofMillis(500);
+    private Duration retryAfter = Duration.ofSeconds(1);
+    //모든 엔드포인트가 동시에 잡을 수 있는 커넥션 수 (spring.datasource.hikari.maximum-pool-size보다 작게)
+    private int maxConnections = 8;
+    //엔드포인트(매핑 패턴)별 설정, 없는 값은 기본값 사용 (ex. endpoints."[/v2/members]".max-concurrent: 5)
+    private Map<String, Limit> endpoints = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private Integer maxConcurrent;
+        private Integer queueCapacity;
+        private Duration maxWait;
+        private Integer connections; //요청 하나가 쓰는 커넥션 수 (기본 1, parallel-count를 켜면 /v3는 2)
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.QueryMetrics;
+
+import java.util.Map;
+
+/**
+ * /actuator/querydslshapes : querydsl.query 지표의 shape 태그 -> JPQL
+ */
+@Component
+@Endpoint(id = "querydslshapes")
+@RequiredArgsConstructor
+public class QueryShapesEndpoint {
+
+    private final QueryMetrics queryMetrics;
+
+    @ReadOperation
+    public Map<String, String> shapes() {
+        return queryMetrics.shapes();
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.config;
+
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.SQLTemplatesRegistry;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import study.querydsl.repository.MemberSearch;
+import study.querydsl.repository.MemberSearchQueryCache;
+import study.querydsl.repository.MemberSqlSearch;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * querydsl-sql (SQLQueryFactory)
+ * - SQL 방언은 시작할 때 DB 메타데이터로 고른다. (SQLTemplatesRegistry)
+ * - 커넥션은 현재 스프링 트랜잭션의 커넥션을 사용 (JPA와 같은 커넥션, replica 라우팅도 동일)
+ * 테이블 Q클래스는 study.querydsl.sql (SMember, STeam) : 코드 생성 없이 직접 관리, 엔티티 매핑을 바꾸면 같이 수정
+ *   (MemberSqlSearchTest.metadataMatchesSchema가 Hibernate가 만든 테이블과 컬럼을 비교한다.)
+ */
+@Configuration
+public class QuerydslSqlConfig {
+
+    public enum SearchEngine {JPA, SQL}
+
+    @Bean
+    public com.querydsl.sql.Configuration querydslSqlConfiguration(DataSource dataSource) throws SQLException {
+        SQLTemplates templates;
+        try (Connection connection = dataSource.getConnection()) {
+            templates = new SQLTemplatesRegistry().getTemplates(connection.getMetaData());
+        }
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates);
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return configuration;
+    }
+
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(com.querydsl.sql.Configuration querydslSqlConfiguration, DataSource dataSource) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+    }
+
+    /**
+     * MemberRepositoryImpl.search (/v1/members) 구현 선택
+     */
+    @Bean
+    @Primary
+    public MemberSearch memberSearch(@Value("${member.search.engine:JPA}") SearchEngine engine,
+                                     MemberSearchQueryCache memberSearchQueryCache,
+                                     MemberSqlSearch memberSqlSearch) {
+        return engine == SearchEngine.SQL ? memberSqlSearch : memberSearchQueryCache;
+    }
+}
@@ -0,0 +1,187 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Transactional(readOnly = true) 는 replica로, 나머지는 primary로 보내는 DataSource
+ * - replica가 여러 개면 라운드로빈
+ * - refreshHealth()에서 replica 상태를 확인해서 연결 불가 / lagQuery 결과(초)가 maxLag 초과면 제외
+ * - 사용 가능한 replica가 없으면 primary로 보낸다.
+ * 트랜잭션 시작 시점(doBegin)에는 TransactionSynchronizationManager의 readOnly 여부가 아직 설정되지 않았으므로
+ * - RoutingJpaTransactionManager가 doBegin 동안 readOnly 여부를 알려주고 (p6spy 등이 커넥션을 바로 사용하는 경우)
+ * - LazyConnectionDataSourceProxy로 감싸서 첫 쿼리가 나갈 때 커넥션을 고르게 한다. (그 외 트랜잭션 매니저)
+ */
+@Slf4j
+public class ReplicationRoutingDataSource extends DelegatingDataSource implements Closeable {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> beginningReadOnly = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final Duration maxLag;
+    private final String lagQuery;
+
+    private volatile List<String> healthyReplicas;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final Map<String, Counter> routeCounters = new HashMap<>();
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicationRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                        Duration maxLag, String lagQuery, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+        this.healthyReplicas = new ArrayList<>(replicas.keySet());
+
+        routeCounters.put(PRIMARY, routeCounter(meterRegistry, PRIMARY));
+        replicas.keySet().forEach(name -> routeCounters.put(name, routeCounter(meterRegistry, name)));
+
+        Router router = new Router();
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(new LazyConnectionDataSourceProxy(router));
+    }
+
+    /**
+     * 현재 트랜잭션이 사용할 대상 (primary / replica-n)
+     */
+    public String currentTarget() {
+        Boolean beginning = beginningReadOnly.get();
+        boolean readOnly = beginning != null ? beginning : TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly) {
+            return PRIMARY;
+        }
+        List<String> candidates = healthyReplicas;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(sequence.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * 트랜잭션 시작(커넥션 획득) 동안 readOnly 여부를 알려준다.
+     */
+    public static void beginTransaction(boolean readOnly, Runnable begin) {
+        Boolean previous = beginningReadOnly.get();
+        beginningReadOnly.set(readOnly);
+        try {
+            begin.run();
+        } finally {
+            if (previous == null) {
+                beginningReadOnly.remove();
+            } else {
+                beginningReadOnly.set(previous);
+            }
+        }
+    }
+
+    /**
+     * replica 상태 확인
+     */
+    public void refreshHealth() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            if (isHealthy(replica.getKey(), replica.getValue())) {
+                healthy.add(replica.getKey());
+            }
+        }
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("replica 대상 변경 {} -> {}", healthyReplicas, healthy);
+        }
+        healthyReplicas = healthy;
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    public synchronized void startHealthCheck(Duration interval) {
+        if (healthChecker == null) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-health-"));
+            healthChecker.scheduleWithFixedDelay(this::refreshHealth, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        closeQuietly(primary);
+        replicas.values().forEach(this::closeQuietly);
+    }
+
+    private boolean isHealthy(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                return connection.isValid(1);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                //결과가 없거나 null이면 복제 상태를 알 수 없으므로 제외
+                if (!rs.next()) {
+                    return false;
+                }
+                double lagSeconds = rs.getDouble(1);
+                return !rs.wasNull() && lagSeconds * 1000 <= maxLag.toMillis();
+            }
+        } catch (Exception e) {
+            log.warn("replica {} 상태 확인 실패 : {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception e) {
+                log.warn("DataSource close 실패", e);
+            }
+        }
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("datasource.routing")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    private class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            String target = currentTarget();
+            routeCounters.get(target).increment();
+            return target;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * datasource.routing.enabled=true 일 때 primary + replica 커넥션 풀을 만들고 읽기 전용 트랜잭션을 replica로 보낸다.
+ * 풀 지표는 hikaricp.connections.*{pool=primary|replica-0..}, 라우팅 횟수는 datasource.routing{target} 으로 노출된다.
+ */
+@Configuration
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+public class RoutingDataSourceConfig implements DisposableBean {
+
+    private ReplicationRoutingDataSource routingDataSource;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(RoutingDataSourceProperties properties) {
+        //MeterRegistry 빈은 DataSource 지표 바인딩 때문에 DataSource에 의존하므로 global registry(스프링 부트가 등록)를 사용
+        MeterRegistry meterRegistry = Metrics.globalRegistry;
+        MicrometerMetricsTrackerFactory metricsTrackerFactory = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        DataSource primary = pool(ReplicationRoutingDataSource.PRIMARY, properties.getPrimary(), metricsTrackerFactory);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            String name = "replica-" + i;
+            replicas.put(name, pool(name, properties.getReplicas().get(i), metricsTrackerFactory));
+        }
+
+        routingDataSource = new ReplicationRoutingDataSource(primary, replicas,
+                properties.getMaxLag(), properties.getLagQuery(), meterRegistry);
+        routingDataSource.startHealthCheck(properties.getCheckInterval());
+        return routingDataSource;
+    }
+
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        RoutingJpaTransactionManager transactionManager = new RoutingJpaTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Override
+    public void destroy() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+
+    private HikariDataSource pool(String name, RoutingDataSourceProperties.Target target,
+                                  MicrometerMetricsTrackerFactory metricsTrackerFactory) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(target.getUrl());
+        dataSource.setUsername(target.getUsername());
+        dataSource.setPassword(target.getPassword());
+        dataSource.setMaximumPoolSize(target.getMaximumPoolSize());
+        dataSource.setMetricsTrackerFactory(metricsTrackerFactory);
+        return dataSource;
+    }
+}
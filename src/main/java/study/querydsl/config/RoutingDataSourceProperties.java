@@ -0,0 +1,32 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+    private Target primary = new Target();
+    private List<Target> replicas = new ArrayList<>();
+    //replica 지연(초)을 한 컬럼으로 돌려주는 쿼리, 비어 있으면 연결 확인만 함
+    private String lagQuery;
+    private Duration maxLag = Duration.ofSeconds(5);
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Target {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
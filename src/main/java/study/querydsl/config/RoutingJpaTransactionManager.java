@@ -0,0 +1,15 @@
+package study.querydsl.config;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * 트랜잭션 시작 시 커넥션을 얻는 동안 readOnly 여부를 ReplicationRoutingDataSource에 알려주는 트랜잭션 매니저
+ */
+public class RoutingJpaTransactionManager extends JpaTransactionManager {
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        ReplicationRoutingDataSource.beginTransaction(definition.isReadOnly(), () -> super.doBegin(transaction, definition));
+    }
+}
@@ -0,0 +1,188 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 검색 엔드포인트 벌크헤드 (엔드포인트별 동시 실행 수 제한)
+ * - maxConcurrent 개까지 실행, 나머지는 queueCapacity 개까지 maxWait 동안 대기 (도착 순서대로)
+ * - 엔드포인트 자리와 함께 전체 커넥션 자리(maxConnections, 요청마다 connections 개)도 잡는다.
+ *   엔드포인트별 제한의 합이 커넥션 풀보다 커도 검색만으로 풀이 바닥나지 않는다.
+ * - 대기열이 차 있으면 바로 429, maxWait 동안 자리가 나지 않으면 503 (둘 다 Retry-After)
+ * 검색이 커넥션 풀을 다 잡고 있어도 톰캣 스레드가 전부 묶이지 않아 다른 엔드포인트는 계속 응답한다.
+ * 지표 : member.search.bulkhead.wait{endpoint}, member.search.bulkhead.rejected{endpoint,reason=queue_full|timeout},
+ *       member.search.bulkhead.active{endpoint}, member.search.bulkhead.waiting{endpoint},
+ *       member.search.bulkhead.connections (전체 커넥션 자리 중 사용 중인 수)
+ * StreamingResponseBody(export)는 비동기 처리가 끝날 때까지 자리를 잡고 있는다.
+ */
+public class SearchBulkheadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT = SearchBulkheadInterceptor.class.getName() + ".permit";
+
+    private final BulkheadProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Semaphore connections;
+
+    public SearchBulkheadInterceptor(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.connections = new Semaphore(properties.getMaxConnections(), true);
+        Gauge.builder("member.search.bulkhead.connections", connections, c -> properties.getMaxConnections() - c.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (request.getAttribute(PERMIT) != null) {
+            return true; //비동기 재디스패치 : 처음 요청에서 잡은 자리를 그대로 사용
+        }
+        String endpoint = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (endpoint == null) {
+            return true;
+        }
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(endpoint, this::create);
+        HttpStatus rejected = bulkhead.acquire();
+        if (rejected != null) {
+            reject(response, rejected, endpoint);
+            return false;
+        }
+        request.setAttribute(PERMIT, bulkhead);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Bulkhead bulkhead = (Bulkhead) request.getAttribute(PERMIT);
+        if (bulkhead != null) {
+            request.removeAttribute(PERMIT);
+            bulkhead.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String endpoint) throws IOException {
+        long retryAfterSeconds = Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getOutputStream().write(("요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해 주세요: " + endpoint)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Bulkhead create(String endpoint) {
+        BulkheadProperties.Limit limit = properties.getEndpoints().getOrDefault(endpoint, new BulkheadProperties.Limit());
+        int maxConcurrent = limit.getMaxConcurrent() != null ? limit.getMaxConcurrent() : properties.getMaxConcurrent();
+        int queueCapacity = limit.getQueueCapacity() != null ? limit.getQueueCapacity() : properties.getQueueCapacity();
+        Duration maxWait = limit.getMaxWait() != null ? limit.getMaxWait() : properties.getMaxWait();
+        int weight = limit.getConnections() != null ? limit.getConnections() : 1;
+        if (weight > properties.getMaxConnections()) {
+            throw new IllegalStateException("member.bulkhead.endpoints." + endpoint + ".connections(" + weight
+                    + ")가 max-connections(" + properties.getMaxConnections() + ")보다 큽니다.");
+        }
+        return new Bulkhead(endpoint, maxConcurrent, queueCapacity, maxWait, connections, weight, meterRegistry);
+    }
+
+    private static class Bulkhead {
+        private final Semaphore permits;
+        private final Semaphore connections; //모든 엔드포인트가 같이 쓰는 커넥션 자리
+        private final int weight; //요청 하나가 잡는 커넥션 자리 수
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final int queueCapacity;
+        private final long maxWaitNanos;
+        private final Timer waitTimer;
+        private final Counter queueFull;
+        private final Counter timeout;
+
+        private Bulkhead(String endpoint, int maxConcurrent, int queueCapacity, Duration maxWait,
+                         Semaphore connections, int weight, MeterRegistry meterRegistry) {
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.connections = connections;
+            this.weight = weight;
+            this.queueCapacity = queueCapacity;
+            this.maxWaitNanos = maxWait.toNanos();
+            this.waitTimer = Timer.builder("member.search.bulkhead.wait")
+                    .tag("endpoint", endpoint)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.queueFull = meterRegistry.counter("member.search.bulkhead.rejected", "endpoint", endpoint, "reason", "queue_full");
+            this.timeout = meterRegistry.counter("member.search.bulkhead.rejected", "endpoint", endpoint, "reason", "timeout");
+            Gauge.builder("member.search.bulkhead.active", permits, p -> maxConcurrent - p.availablePermits())
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+            Gauge.builder("member.search.bulkhead.waiting", waiting, AtomicInteger::get)
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return 거절 상태 코드, 자리를 잡았으면 null
+         */
+        private HttpStatus acquire() {
+            //tryAcquire()는 공정성을 무시하고 새치기하므로 대기 시간 0으로 호출
+            if (tryAcquire(0)) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return null;
+            }
+            if (waiting.incrementAndGet() > queueCapacity) {
+                waiting.decrementAndGet();
+                queueFull.increment();
+                return HttpStatus.TOO_MANY_REQUESTS;
+            }
+            long start = System.nanoTime();
+            try {
+                boolean acquired = tryAcquire(maxWaitNanos);
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (!acquired) {
+                    timeout.increment();
+                    return HttpStatus.SERVICE_UNAVAILABLE;
+                }
+                return null;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        /**
+         * 엔드포인트 자리 -> 커넥션 자리 순서로 잡는다. (커넥션 자리를 못 잡으면 엔드포인트 자리도 돌려준다.)
+         */
+        private boolean tryAcquire(long timeoutNanos) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            boolean endpointAcquired = false;
+            try {
+                endpointAcquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+                if (endpointAcquired
+                        && connections.tryAcquire(weight, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (endpointAcquired) {
+                permits.release();
+            }
+            return false;
+        }
+
+        private void release() {
+            connections.release(weight);
+            permits.release();
+        }
+    }
+}
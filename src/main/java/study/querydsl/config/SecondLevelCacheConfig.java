@@ -0,0 +1,56 @@
+package study.querydsl.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.entity.Team;
+
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+
+/**
+ * Hibernate 2차 캐시 (JCache + Ehcache, 힙 메모리)
+ * 거의 변경되지 않는 Team만 캐시한다. (READ_WRITE : 변경은 커밋 후 캐시에 반영, bulk update/delete는 region 전체 무효화)
+ * - em.find, 지연 로딩(member.getTeam()) 시 DB 대신 캐시에서 조회
+ * - fetch join, where절의 team.name 조건처럼 쿼리로 읽는 경우는 캐시를 사용하지 않는다.
+ * 통계 : hibernate.second.level.cache.requests{region,result=hit|miss}, hibernate.second.level.cache.puts 등 (/actuator/metrics)
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.team-cache.enabled", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    public static final String TEAM_REGION = Team.class.getName();
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${member.team-cache.ttl:10m}") Duration ttl,
+                                                @Value("${member.team-cache.max-entries:1000}") long maxEntries) {
+        //컨텍스트마다 별도의 CacheManager (같은 JVM에 컨텍스트가 여러 개여도 region이 섞이지 않도록)
+        CachingProvider cachingProvider = new EhcacheCachingProvider();
+        CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(), getClass().getClassLoader());
+        cacheManager.createCache(TEAM_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail"); //위에서 만들지 않은 region은 오류
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * member.team-cache.enabled=false (또는 설정 없음)일 때 2차 캐시를 명시적으로 끈다.
+ * hibernate-jcache가 classpath에 있으면 설정이 없어도 Hibernate가 jcache region factory를 자동으로 선택하고
+ * (@Cache가 붙은 Team은 기본 JCache 프로바이더로 캐시됨) 플래그만으로는 캐시가 꺼지지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.team-cache.enabled", havingValue = "false", matchIfMissing = true)
+public class SecondLevelCacheDisabledConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheDisabledCustomizer() {
+        return properties -> properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+    }
+}
@@ -0,0 +1,155 @@
+package study.querydsl.config;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 느린 SQL 기록 (p6spy JdbcEventListener, p6spy-spring-boot-starter가 빈으로 등록된 리스너를 붙여준다.)
+ * threshold를 넘는 statement만 SQL(바인딩 값 포함), 호출한 repository 메서드, 실행 시간을 잡아서
+ * 고정 크기 링 버퍼에 넣는다. (락 X, 오래된 것부터 덮어씀) -> /actuator/slowqueries
+ * threshold 이하인 statement는 시간 비교 한번만 하므로 항상 켜 두어도 된다.
+ * 로그는 sample-rate 비율만 별도 스레드에서 남기고, 로그 큐가 차면 버린다. (쿼리 스레드를 막지 않음)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sql.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryRecorder extends JdbcEventListener {
+
+    //호출 위치를 찾을 때 건너뛰는 클래스 (쿼리를 실행만 해주는 클래스)
+    private static final String[] SKIP_PREFIXES = {
+            "study.querydsl.config.",
+            "study.querydsl.repository.InstrumentedJPAQueryFactory",
+            "study.querydsl.repository.QueryMetrics"
+    };
+
+    private final long thresholdNanos;
+    private final double logSampleRate;
+    private final AtomicReferenceArray<SlowQuery> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor logExecutor;
+
+    public SlowQueryRecorder(@Value("${sql.slow-query.threshold:200ms}") Duration threshold,
+                             @Value("${sql.slow-query.capacity:100}") int capacity,
+                             @Value("${sql.slow-query.log-sample-rate:0.1}") double logSampleRate,
+                             @Value("${sql.slow-query.log-queue-capacity:100}") int logQueueCapacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.logSampleRate = logSampleRate;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.logExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(logQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-log");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos) {
+            return;
+        }
+        SlowQuery slowQuery = new SlowQuery(
+                sequence.getAndIncrement(),
+                Instant.now(),
+                TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                origin(),
+                statementInformation.getSqlWithValues(),
+                e == null ? null : e.getMessage());
+        buffer.set((int) (slowQuery.getSequence() % buffer.length()), slowQuery);
+
+        if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+            logExecutor.execute(() -> log.warn("Slow query: {}ms at {} : {}",
+                    slowQuery.getElapsedMillis(), slowQuery.getOrigin(), slowQuery.getSql()));
+        }
+    }
+
+    /**
+     * 최근 것부터
+     */
+    public List<SlowQuery> snapshot() {
+        List<SlowQuery> result = new ArrayList<>(buffer.length());
+        for (int i = 0; i < buffer.length(); i++) {
+            SlowQuery slowQuery = buffer.get(i);
+            if (slowQuery != null) {
+                result.add(slowQuery);
+            }
+        }
+        result.sort(Comparator.comparingLong(SlowQuery::getSequence).reversed());
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < buffer.length(); i++) {
+            buffer.set(i, null);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logExecutor.shutdown();
+    }
+
+    /**
+     * SQL을 실행한 repository/service 메서드 (느린 쿼리일 때만 스택을 본다.)
+     */
+    static String origin() {
+        Optional<StackWalker.StackFrame> frame = StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith("study.querydsl.") && !skipped(f.getClassName()))
+                .findFirst());
+        return frame.map(f -> simpleName(f.getClassName()) + "." + f.getMethodName()).orElse("unknown");
+    }
+
+    private static boolean skipped(String className) {
+        for (String prefix : SKIP_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    @Getter
+    public static class SlowQuery {
+        private final long sequence;
+        private final Instant timestamp;
+        private final long elapsedMillis;
+        private final String origin;
+        private final String sql; //바인딩 값이 들어간 SQL
+        private final String error;
+
+        SlowQuery(long sequence, Instant timestamp, long elapsedMillis, String origin, String sql, String error) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.elapsedMillis = elapsedMillis;
+            this.origin = origin;
+            this.sql = sql;
+            this.error = error;
+        }
+    }
+}
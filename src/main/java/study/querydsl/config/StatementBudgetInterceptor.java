@@ -0,0 +1,42 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 요청마다 SQL 수를 세고 예산(sql.statement-budget.max-per-request)을 넘으면 경고 로그를 남긴다.
+ */
+@Slf4j
+public class StatementBudgetInterceptor implements HandlerInterceptor {
+
+    private static final String SCOPE = StatementBudgetInterceptor.class.getName() + ".scope";
+
+    private final int maxPerRequest;
+
+    public StatementBudgetInterceptor(int maxPerRequest) {
+        this.maxPerRequest = maxPerRequest;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(SCOPE, StatementCounter.open());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        StatementCounter.Scope scope = (StatementCounter.Scope) request.getAttribute(SCOPE);
+        if (scope == null) {
+            return;
+        }
+        request.removeAttribute(SCOPE);
+        scope.close();
+        if (scope.getCount() > maxPerRequest) {
+            log.warn("SQL statement budget exceeded: {} {}?{} executed {} statements (budget {})",
+                    request.getMethod(), request.getRequestURI(), request.getQueryString(), scope.getCount(), maxPerRequest);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate가 준비하는 SQL 수를 스레드 단위로 센다. (N+1 감지용)
+ * HTTP 요청은 StatementBudgetInterceptor, 테스트는 SqlStatementExtension이 범위(Scope)를 연다.
+ * 범위가 겹치면 바깥 범위에도 같이 더해진다.
+ * 다른 스레드에서 실행되는 쿼리(병렬 count, 스트리밍 export)는 세지 않는다.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    public static Scope open() {
+        Scope scope = new Scope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    /**
+     * 현재 범위, 열린 범위가 없으면 null
+     */
+    public static Scope current() {
+        return current.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        for (Scope scope = current.get(); scope != null; scope = scope.parent) {
+            scope.count++;
+        }
+        return sql;
+    }
+
+    public static class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private int count;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void reset() {
+            count = 0;
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+        }
+    }
+}
@@ -1,15 +1,14 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.dto.MemberSeed;
+import study.querydsl.repository.MemberBulkLoader;
 
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import java.util.stream.IntStream;
 
 @Profile("local")
 @Component
@@ -22,18 +21,18 @@ public class InitMember {
     }
     @Component
     static class InitMemberService {
-        @PersistenceContext
-        EntityManager em;
-        @Transactional
+        private final MemberBulkLoader memberBulkLoader;
+        private final int memberCount;
+
+        InitMemberService(MemberBulkLoader memberBulkLoader, @Value("${member.init.count:100}") int memberCount) {
+            this.memberBulkLoader = memberBulkLoader;
+            this.memberCount = memberCount;
+        }
+
+        //대량 데이터가 필요하면 member.init.count를 늘려서 실행 (MemberBulkLoader로 배치 insert)
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
+            memberBulkLoader.load(IntStream.range(0, memberCount)
+                    .mapToObj(i -> new MemberSeed("member" + i, i, i % 2 == 0 ? "teamA" : "teamB")));
         }
     }
-}
\ No newline at end of file
+}
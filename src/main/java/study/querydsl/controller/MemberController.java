@@ -3,33 +3,97 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.MemberExportService;
+import study.querydsl.service.MemberQueryCostGuard;
+import study.querydsl.service.MemberSearchCoalescer;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
-    private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberSearchCoalescer memberSearchCoalescer;
+    private final MemberQueryCostGuard memberQueryCostGuard;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+        memberQueryCostGuard.checkUnpaged(condition);
+        return memberSearchCoalescer.search(condition);
     }
 
     @GetMapping("/v2/members")
     public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageSimple(condition, pageable);
+        return memberSearchCoalescer.searchPageSimple(condition, memberQueryCostGuard.checkPage(condition, pageable));
     }
 
     @GetMapping("/v3/members")
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageComlex(condition, pageable);
+        return memberSearchCoalescer.searchPageComlex(condition, memberQueryCostGuard.checkPage(condition, pageable));
+    }
+
+    /**
+     * fields 파라미터가 있으면 요청한 컬럼만 조회해서 그 필드만 내려준다. (ex. ?fields=username,age)
+     * teamName을 요청하지 않으면 team join도 하지 않는다.
+     */
+    @GetMapping(value = "/v1/members", params = "fields")
+    public List<Map<String, Object>> searchMemberFieldsV1(MemberSearchCondition condition, @RequestParam String fields){
+        memberQueryCostGuard.checkUnpaged(condition);
+        return memberSearchCoalescer.searchFields(condition, MemberField.parse(fields));
+    }
+
+    @GetMapping(value = "/v2/members", params = "fields")
+    public Page<Map<String, Object>> searchMemberFieldsV2(MemberSearchCondition condition, @RequestParam String fields, Pageable pageable){
+        return memberSearchCoalescer.searchPageSimpleFields(condition, MemberField.parse(fields), memberQueryCostGuard.checkPage(condition, pageable));
+    }
+
+    @GetMapping(value = "/v3/members", params = "fields")
+    public Page<Map<String, Object>> searchMemberFieldsV3(MemberSearchCondition condition, @RequestParam String fields, Pageable pageable){
+        return memberSearchCoalescer.searchPageFields(condition, MemberField.parse(fields), memberQueryCostGuard.checkPage(condition, pageable));
+    }
+
+    /**
+     * 키셋 페이징 - 다음 페이지는 응답의 nextCursor를 cursor 파라미터로 넘겨서 조회
+     */
+    @GetMapping("/v4/members")
+    public MemberSlice searchMemberV4(MemberSearchCondition condition,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(defaultValue = "ID") MemberCursor.SortKey sort,
+                                      @RequestParam(defaultValue = "20") int size){
+        MemberCursor memberCursor = cursor != null ? MemberCursor.decode(cursor) : MemberCursor.first(sort);
+        return memberRepository.searchByCursor(condition, memberCursor, memberQueryCostGuard.checkSize(condition, size));
+    }
+
+    /**
+     * 검색 결과 전체 내보내기 (NDJSON / CSV 스트리밍)
+     */
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(MemberSearchCondition condition,
+                                                               @RequestParam(defaultValue = "NDJSON") MemberExportService.Format format){
+        StreamingResponseBody body = out -> memberExportService.export(condition, format, out);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=members." + format.getExtension())
+                .body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e){
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
@@ -0,0 +1,65 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징용 커서
+ * 마지막으로 읽은 memberId(정렬 키를 쓰는 경우 age도 함께)를 클라이언트에게는 불투명한 문자열로 넘겨준다.
+ */
+@Getter
+public class MemberCursor {
+
+    public enum SortKey {ID, AGE}
+
+    private final SortKey sortKey;
+    private final Integer age;
+    private final Long memberId;
+
+    private MemberCursor(SortKey sortKey, Integer age, Long memberId) {
+        this.sortKey = sortKey;
+        this.age = age;
+        this.memberId = memberId;
+    }
+
+    /**
+     * 첫 페이지 (where 조건 없이 처음부터 읽음)
+     */
+    public static MemberCursor first(SortKey sortKey) {
+        return new MemberCursor(sortKey == null ? SortKey.ID : sortKey, null, null);
+    }
+
+    /**
+     * 현재 페이지의 마지막 row 다음부터 읽는 커서
+     */
+    public static MemberCursor after(SortKey sortKey, MemberTeamDto last) {
+        return new MemberCursor(sortKey, sortKey == SortKey.AGE ? last.getAge() : null, last.getMemberId());
+    }
+
+    public boolean isFirst() {
+        return memberId == null;
+    }
+
+    public String encode() {
+        String raw = sortKey + ":" + (age == null ? "" : age) + ":" + memberId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            Integer age = parts[1].isEmpty() ? null : Integer.valueOf(parts[1]);
+            Long memberId = Long.valueOf(parts[2]);
+            if (sortKey == SortKey.AGE && age == null) {
+                throw new IllegalArgumentException("age 정렬 커서에 age 값이 없습니다.");
+            }
+            return new MemberCursor(sortKey, age, memberId);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다: " + cursor, e);
+        }
+    }
+}
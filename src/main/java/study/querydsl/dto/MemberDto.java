@@ -15,8 +15,6 @@ public class MemberDto {
     public MemberDto(String username, int age) {
         this.username = username;
         this.age = age;
-        System.out.println("username = "+ username);
-        System.out.println("age = "+ age);
     }
 
 
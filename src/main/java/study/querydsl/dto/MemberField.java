@@ -0,0 +1,53 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * fields 파라미터로 고를 수 있는 MemberTeamDto 컬럼
+ * 요청한 컬럼만 select 하고, 응답에도 요청한 필드만 내려준다.
+ */
+@Getter
+public enum MemberField {
+    MEMBER_ID("memberId", false),
+    USERNAME("username", false),
+    AGE("age", false),
+    TEAM_ID("teamId", false), //member.team_id 컬럼이라 team join이 필요 없다.
+    TEAM_NAME("teamName", true);
+
+    private final String property;
+    private final boolean teamJoin;
+
+    MemberField(String property, boolean teamJoin) {
+        this.property = property;
+        this.teamJoin = teamJoin;
+    }
+
+    /**
+     * "username,teamName" -> [USERNAME, TEAM_NAME] (MemberTeamDto 프로퍼티 이름, 순서는 enum 순서)
+     */
+    public static Set<MemberField> parse(String fields) {
+        Set<MemberField> result = EnumSet.noneOf(MemberField.class);
+        for (String property : fields.split(",")) {
+            String trimmed = property.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(of(trimmed));
+            }
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("fields가 비어 있습니다.");
+        }
+        return result;
+    }
+
+    private static MemberField of(String property) {
+        for (MemberField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 field입니다: " + property);
+    }
+}
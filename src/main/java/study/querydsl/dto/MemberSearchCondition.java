@@ -2,6 +2,8 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
     //회원명, 팀명, 나이(ageGoe, ageLoe)
@@ -11,5 +13,16 @@ public class MemberSearchCondition {
     private Integer ageGoe;//크거나 같거나
     private Integer ageLoe;//작거나 같거나
 
-
+    /**
+     * 같은 쿼리가 나가는 조건끼리 equals가 같도록 정규화 (where 파라미터에서 무시되는 빈 문자열은 null로)
+     * 캐시 키 등으로 사용
+     */
+    public MemberSearchCondition normalize() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setTeamName(hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+/**
+ * 대량 적재용 회원 데이터 (teamName이 null이면 팀 없음)
+ */
+@Data
+public class MemberSeed {
+
+    private final String username;
+    private final int age;
+    private final String teamName;
+
+    public MemberSeed(String username, int age, String teamName) {
+        this.username = username;
+        this.age = age;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 키셋 페이징 결과 (count 쿼리 없이 다음 페이지 존재 여부와 다음 커서만 내려준다)
+ */
+@Getter
+public class MemberSlice {
+
+    private final List<MemberTeamDto> content;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public MemberSlice(List<MemberTeamDto> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+}
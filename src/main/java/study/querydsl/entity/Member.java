@@ -11,10 +11,22 @@ import javax.persistence.*;
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","username", "age"})
+//MemberSearchCondition 조건별 인덱스 (QueryPlanTest가 EXPLAIN으로 table scan이 없는지 확인)
+//- username = ?, age 범위, 정렬 키(MemberSortTranslator)는 (컬럼, id) -> 정렬된 깊은 페이지도 인덱스 순서대로 읽는다.
+//- teamName은 TeamNameDictionary로 team_id in (..) 이 되므로 (team_id, age) : 팀 + 나이 범위를 한 인덱스에서 처리
+@Table(indexes = {
+        @Index(name = "idx_member_username_id", columnList = "username, id"),
+        @Index(name = "idx_member_age_id", columnList = "age, id"),
+        @Index(name = "idx_member_team_id_id", columnList = "team_id, id"),
+        @Index(name = "idx_member_team_id_age", columnList = "team_id, age")
+})
 //@TosTring어노테이션 사용시 주의할 것 : 본인이 사용할 필드만 넣어줄 것. 연관관계 가진 필드는 X (무한루프 돌 가능성 있음)
 public class Member {
 
-    @Id @GeneratedValue
+    //pooled 시퀀스 : allocationSize 만큼 id를 미리 받아와서 insert마다 시퀀스 조회를 하지 않음
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     private Long id;
     private String username;
     private int age;
@@ -4,19 +4,26 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) //member.team-cache.enabled=true 일 때 2차 캐시 (SecondLevelCacheConfig)
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id","name"})
+@Table(indexes = @Index(name = "idx_team_name_id", columnList = "name, id")) //team.name = ? (쓰기 트랜잭션 등 TeamNameDictionary를 쓰지 않을 때)
 public class Team {
 
+    //pooled 시퀀스 : allocationSize 만큼 id를 미리 받아와서 insert마다 시퀀스 조회를 하지 않음
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     private Long id;
     private String name;
 
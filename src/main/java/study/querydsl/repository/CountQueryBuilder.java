@@ -0,0 +1,180 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 컨텐츠 쿼리의 where 조건으로부터 가장 가벼운 count 쿼리를 만든다.
+ * - select는 count(root.id) 하나만, order by 없음
+ * - left join은 where 조건이 그 alias를 참조할 때만 붙인다.
+ *   (to-one 관계의 left join은 row 수를 바꾸지 않기 때문에 빼도 count 결과가 같다. to-many 나 inner join은 여기에 넣으면 안됨)
+ *
+ * CountQueryBuilder.countOf(queryFactory, member, member.id)
+ *         .leftJoin(member.team, team)
+ *         .where(usernameEq(..), teamNameEq(..))
+ *         .build();
+ */
+public class CountQueryBuilder {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityPath<?> root;
+    private final SimpleExpression<?> countTarget;
+    private final List<LeftJoin<?>> leftJoins = new ArrayList<>();
+    private final List<Predicate> predicates = new ArrayList<>();
+
+    private CountQueryBuilder(JPAQueryFactory queryFactory, EntityPath<?> root, SimpleExpression<?> countTarget) {
+        this.queryFactory = queryFactory;
+        this.root = root;
+        this.countTarget = countTarget;
+    }
+
+    public static CountQueryBuilder countOf(JPAQueryFactory queryFactory, EntityPath<?> root, SimpleExpression<?> countTarget) {
+        return new CountQueryBuilder(queryFactory, root, countTarget);
+    }
+
+    /**
+     * to-one 관계의 left join (where 조건에서 alias를 쓸 때만 실제 쿼리에 들어감)
+     */
+    public <P> CountQueryBuilder leftJoin(EntityPath<P> target, Path<P> alias) {
+        leftJoins.add(new LeftJoin<>(target, alias));
+        return this;
+    }
+
+    /**
+     * null 조건은 무시 (where 파라미터와 동일)
+     */
+    public CountQueryBuilder where(Predicate... predicates) {
+        Arrays.stream(predicates).filter(Objects::nonNull).forEach(this.predicates::add);
+        return this;
+    }
+
+    public JPAQuery<Long> build() {
+        Set<Expression<?>> referenced = referencedRoots();
+
+        JPAQuery<Long> query = queryFactory
+                .select(countTarget.count())
+                .from(root);
+        for (LeftJoin<?> join : leftJoins) {
+            if (referenced.contains(join.alias)) {
+                join.applyTo(query);
+            }
+        }
+        return query.where(predicates.toArray(new Predicate[0]));
+    }
+
+    public long fetchCount() {
+        Long count = build().fetchOne();
+        return count == null ? 0L : count;
+    }
+
+    /**
+     * where 조건이 참조하는 alias + 그 alias의 join을 위해 필요한 alias
+     */
+    private Set<Expression<?>> referencedRoots() {
+        Set<Expression<?>> roots = new HashSet<>();
+        for (Predicate predicate : predicates) {
+            predicate.accept(RootCollector.INSTANCE, roots);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (LeftJoin<?> join : leftJoins) {
+                if (roots.contains(join.alias) && roots.add(join.target.getRoot())) {
+                    changed = true;
+                }
+            }
+        }
+        return roots;
+    }
+
+    private static class LeftJoin<P> {
+        private final EntityPath<P> target;
+        private final Path<P> alias;
+
+        private LeftJoin(EntityPath<P> target, Path<P> alias) {
+            this.target = target;
+            this.alias = alias;
+        }
+
+        private void applyTo(JPAQuery<?> query) {
+            query.leftJoin(target, alias);
+        }
+    }
+
+    /**
+     * 식 트리를 돌면서 Path의 root(alias)를 모은다.
+     */
+    static class RootCollector implements Visitor<Void, Set<Expression<?>>> {
+
+        static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            //상관 서브쿼리가 바깥 alias를 참조하는 경우
+            if (expr.getMetadata().getWhere() != null) {
+                expr.getMetadata().getWhere().accept(this, roots);
+            }
+            if (expr.getMetadata().getProjection() != null) {
+                expr.getMetadata().getProjection().accept(this, roots);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * fetch, fetchOne, fetchCount, fetchResults, execute 실행 시간을 QueryMetrics에 기록하는 JPAQueryFactory
+ * querydsl.metrics.enabled=false 이면 등록하지 않고 기본 JPAQueryFactory를 쓴다. (QuerydslApplication)
+ */
+public class InstrumentedJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager em;
+    private final QueryMetrics queryMetrics;
+
+    public InstrumentedJPAQueryFactory(EntityManager em, QueryMetrics queryMetrics) {
+        super(em);
+        this.em = em;
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new InstrumentedJPAQuery<Void>(em, queryMetrics);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(em, path) {
+            @Override
+            public long execute() {
+                return queryMetrics.record("update", entityName(path), toString(), super::execute, rows -> rows);
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(em, path) {
+            @Override
+            public long execute() {
+                return queryMetrics.record("delete", entityName(path), toString(), super::execute, rows -> rows);
+            }
+        };
+    }
+
+    private static String entityName(EntityPath<?> path) {
+        return path.getType().getSimpleName();
+    }
+
+    static class InstrumentedJPAQuery<T> extends JPAQuery<T> {
+
+        private final QueryMetrics queryMetrics;
+
+        InstrumentedJPAQuery(EntityManager em, QueryMetrics queryMetrics) {
+            super(em);
+            this.queryMetrics = queryMetrics;
+        }
+
+        private InstrumentedJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, QueryMetrics queryMetrics) {
+            super(em, templates, metadata);
+            this.queryMetrics = queryMetrics;
+        }
+
+        @Override
+        public List<T> fetch() {
+            return queryMetrics.record("fetch", entityName(), jpql(false), super::fetch, List::size);
+        }
+
+        @Override
+        public T fetchOne() {
+            return queryMetrics.record("fetchOne", entityName(), jpql(false), super::fetchOne, result -> result == null ? 0 : 1);
+        }
+
+        @Override
+        public long fetchCount() {
+            return queryMetrics.record("fetchCount", entityName(), jpql(true), super::fetchCount, count -> 1);
+        }
+
+        @Override
+        public QueryResults<T> fetchResults() {
+            return queryMetrics.record("fetchResults", entityName(), jpql(false), super::fetchResults, results -> results.getResults().size());
+        }
+
+        @Override
+        public InstrumentedJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+            InstrumentedJPAQuery<T> q = new InstrumentedJPAQuery<>(entityManager, templates, getMetadata().clone(), queryMetrics);
+            q.clone(this);
+            return q;
+        }
+
+        //offset, limit, 파라미터 값은 JPQL에 들어가지 않으므로 같은 모양의 쿼리는 같은 shape가 된다.
+        private String jpql(boolean forCount) {
+            return serialize(forCount).toString();
+        }
+
+        private String entityName() {
+            return getMetadata().getJoins().isEmpty() ? "none" : getMetadata().getJoins().get(0).getTarget().getType().getSimpleName();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package study.querydsl.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSeed;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 회원 대량 적재
+ * - pooled 시퀀스(allocationSize)로 insert마다 시퀀스 조회 X
+ * - hibernate.jdbc.batch_size + order_inserts 로 JDBC 배치 insert
+ * - chunkSize 마다 별도 트랜잭션으로 커밋하고 clear 해서 영속성 컨텍스트가 커지지 않게 함
+ * - count 캐시 무효화는 건마다가 아니라 적재가 끝날 때 한번 (MemberCountCacheInvalidator.suspend)
+ * 팀은 이름으로 찾고 없으면 만든다. (같은 이름의 팀이 여러 개면 id가 가장 작은 팀)
+ * chunk마다 커밋되므로 중간에 실패하면 앞 chunk까지만 반영되고, 적재 중에는 count 캐시가 TTL 동안 이전 값일 수 있다.
+ */
+@Repository
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberCountCacheInvalidator memberCountCacheInvalidator;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em,
+                            PlatformTransactionManager transactionManager,
+                            MemberCountCacheInvalidator memberCountCacheInvalidator,
+                            @Value("${member.bulk-load.chunk-size:1000}") int chunkSize) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.memberCountCacheInvalidator = memberCountCacheInvalidator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return 적재한 회원 수
+     */
+    public long load(Stream<MemberSeed> seeds) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            //바깥 트랜잭션에 참여하면 chunk별 커밋이 안되고 전체가 커밋될 때까지 메모리에 남는다.
+            throw new IllegalStateException("대량 적재는 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        return memberCountCacheInvalidator.suspend(() -> {
+            Map<String, Long> teamIds = transactionTemplate.execute(status -> findTeamIds());
+            Iterator<MemberSeed> iterator = seeds.iterator();
+            long count = 0;
+            while (iterator.hasNext()) {
+                Long loaded = transactionTemplate.execute(status -> loadChunk(iterator, teamIds));
+                count += loaded == null ? 0 : loaded;
+            }
+            return count;
+        });
+    }
+
+    private long loadChunk(Iterator<MemberSeed> iterator, Map<String, Long> teamIds) {
+        Map<String, Team> chunkTeams = new HashMap<>(); //chunk 안에서만 영속 상태
+        long rows = 0;
+        while (rows < chunkSize && iterator.hasNext()) {
+            MemberSeed seed = iterator.next();
+            Team memberTeam = seed.getTeamName() == null ? null : team(seed.getTeamName(), teamIds, chunkTeams);
+            em.persist(new Member(seed.getUsername(), seed.getAge(), memberTeam));
+            rows++;
+        }
+        em.flush();
+        em.clear();
+        return rows;
+    }
+
+    private Team team(String teamName, Map<String, Long> teamIds, Map<String, Team> chunkTeams) {
+        Team found = chunkTeams.get(teamName);
+        if (found != null) {
+            return found;
+        }
+        Long teamId = teamIds.get(teamName);
+        if (teamId != null) {
+            found = em.getReference(Team.class, teamId);
+        } else {
+            found = new Team(teamName);
+            em.persist(found);
+            teamIds.put(teamName, found.getId());
+        }
+        chunkTeams.put(teamName, found);
+        return found;
+    }
+
+    private Map<String, Long> findTeamIds() {
+        List<Object[]> rows = em.createQuery("select t.name, min(t.id) from Team t group by t.name", Object[].class)
+                .getResultList();
+        Map<String, Long> teamIds = new HashMap<>();
+        for (Object[] row : rows) {
+            teamIds.put((String) row[0], (Long) row[1]);
+        }
+        return teamIds;
+    }
+}
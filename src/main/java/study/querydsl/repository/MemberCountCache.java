@@ -0,0 +1,49 @@
+package study.querydsl.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * searchPageComlex의 count 쿼리 결과 캐시
+ * 키는 정규화된 검색 조건, TTL + 최대 크기로 만료/제거한다.
+ * Member, Team 변경 시 MemberCountCacheInvalidator가 전체 무효화한다.
+ * 지표 : cache.gets{cache=memberCount,result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+public class MemberCountCache {
+
+    private final Cache<MemberSearchCondition, Long> cache;
+
+    public MemberCountCache(@Value("${member.count-cache.ttl:30s}") Duration ttl,
+                            @Value("${member.count-cache.maximum-size:1000}") long maximumSize,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberCount");
+    }
+
+    public long get(MemberSearchCondition condition, LongSupplier countQuery) {
+        //쓰기 트랜잭션 안에서는 커밋 전 데이터가 count에 섞일 수 있으므로 캐시를 쓰지 않는다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return countQuery.getAsLong();
+        }
+        return cache.get(condition.normalize(), key -> countQuery.getAsLong());
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
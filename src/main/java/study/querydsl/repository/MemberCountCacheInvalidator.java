@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+/**
+ * Member, Team의 insert/update/delete가 커밋되면 count 캐시를 비운다.
+ * 커밋 이후에 비워야 다른 트랜잭션이 커밋 전 상태로 count를 다시 캐시하지 않는다.
+ * (벌크 연산(execute)은 이벤트가 발생하지 않으므로 직접 invalidateAll()을 호출해야 한다.)
+ * 대량 적재는 suspend()로 감싸면 건마다 커밋 후 처리를 등록하지 않고 끝날 때 한번만 비운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberCountCacheInvalidator implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    //suspend() 중인 스레드 (Hibernate는 flush/커밋을 호출한 스레드에서 이벤트를 처리한다)
+    private static final ThreadLocal<Boolean> SUSPENDED = ThreadLocal.withInitial(() -> false);
+
+    private final EntityManagerFactory emf;
+    private final MemberCountCache memberCountCache;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * work 안에서 이 스레드가 만든 insert/update/delete는 커밋 후 처리(EntityInsertAction 등)를 등록하지 않는다.
+     * 등록된 처리는 엔티티 상태를 커밋까지 붙잡고 있으므로 em.clear()를 해도 힙에 남는다.
+     * work가 끝나면(실패 포함) count 캐시를 한번 비운다.
+     */
+    public <T> T suspend(Supplier<T> work) {
+        boolean previous = SUSPENDED.get();
+        SUSPENDED.set(true);
+        try {
+            return work.get();
+        } finally {
+            SUSPENDED.set(previous);
+            memberCountCache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        if (SUSPENDED.get()) {
+            return false;
+        }
+        Class<?> entityClass = persister.getMappedClass();
+        return Member.class.isAssignableFrom(entityClass) || Team.class.isAssignableFrom(entityClass);
+    }
+
+    private void invalidate(Object entity) {
+        //Team처럼 다른 리스너(TeamNameDictionary)가 등록한 커밋 후 처리에서도 호출되므로 여기서도 확인
+        if (SUSPENDED.get()) {
+            return;
+        }
+        if (entity instanceof Member || entity instanceof Team) {
+            memberCountCache.invalidateAll();
+        }
+    }
+}
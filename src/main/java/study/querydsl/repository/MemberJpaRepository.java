@@ -3,8 +3,11 @@ package study.querydsl.repository;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -16,20 +19,29 @@ import study.querydsl.entity.QTeam;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.aspectj.util.LangUtil.isEmpty;
 import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.repository.ReadOnlyQueries.readOnly;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
 @Repository
+@Transactional(readOnly = true) //조회는 읽기 전용 트랜잭션 (replica 라우팅 대상)
 public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
-    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) {
+    private final MemberSearchQueryCache memberSearchQueryCache;
+    private final TeamNameDictionary teamNameDictionary;
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, MemberSearchQueryCache memberSearchQueryCache,
+                               TeamNameDictionary teamNameDictionary) {
         this.em = em;
         this.queryFactory = queryFactory;
+        this.memberSearchQueryCache = memberSearchQueryCache;
+        this.teamNameDictionary = teamNameDictionary;
     }
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -37,25 +49,26 @@ public class MemberJpaRepository {
         Member findMember = em.find(Member.class, id);
         return Optional.ofNullable(findMember);
     }
+    //조회한 엔티티는 읽기 전용 (ReadOnlyQueries, 쓰기 트랜잭션에 참여하면 일반 엔티티)
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class)
+        return readOnly(em.createQuery("select m from Member m", Member.class))
                 .getResultList();
     }
 
     public List<Member> findAll_Querydsl() {
-        return queryFactory
-                .selectFrom(member).fetch();
+        return readOnly(queryFactory
+                .selectFrom(member)).fetch();
     }
 
     public List<Member> findByUsername(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        return readOnly(em.createQuery("select m from Member m where m.username = :username", Member.class))
                 .setParameter("username", username)
                 .getResultList();
     }
     public List<Member> findByUsername_Querydsl(String username) {
-        return queryFactory
+        return readOnly(queryFactory
                 .selectFrom(member)
-                .where(member.username.eq(username))
+                .where(member.username.eq(username)))
                 .fetch();
     }
 
@@ -90,8 +103,16 @@ public class MemberJpaRepository {
     }
     /**
      * 동적 쿼리와 성능 최적화  - Where절 파람미터 사용
+     * 조건 모양별로 만들어 둔 JPQL을 사용한다. (MemberSearchQueryCache)
      */
     public List<MemberTeamDto> search(MemberSearchCondition condition){
+        return memberSearchQueryCache.search(condition);
+    }
+
+    /**
+     * search와 같은 쿼리를 매번 Querydsl로 만들어서 실행 (MemberSearchQueryCache 비교용)
+     */
+    public List<MemberTeamDto> searchRendered(MemberSearchCondition condition){
         return queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -110,6 +131,31 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    /**
+     * search와 같은 조건을 forward-only 커서(ScrollableResults)로 조회
+     * 결과 전체를 List로 올리지 않고 fetchSize 만큼씩 JDBC에서 읽어온다.
+     * 트랜잭션 안에서 사용하고 다 읽은 뒤 반드시 close 해줄 것
+     */
+    public CloseableIterator<MemberTeamDto> searchIterate(MemberSearchCondition condition, int fetchSize){
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .iterate();
+    }
+
     //조립 가능
     /**
      * where(
@@ -126,8 +172,13 @@ public class MemberJpaRepository {
         return hasText(username) ? member.username.eq(username) : null;
     }
 
+    //팀 이름 사전을 쓸 수 있으면 team.name 대신 member.team_id 컬럼으로 비교 (TeamNameDictionary)
     private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+        if (!hasText(teamName)) {
+            return null;
+        }
+        Set<Long> teamIds = teamNameDictionary.teamIdsOf(teamName);
+        return teamIds != null ? member.team.id.in(teamIds) : team.name.eq(teamName);
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
@@ -2,16 +2,27 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComlex(MemberSearchCondition condition, Pageable pageable);
+    MemberSlice searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size);
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields);
+    Page<Map<String, Object>> searchPageSimpleFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable);
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable);
+    List<Member> findAllByIds(Collection<Long> ids);
 
 
 
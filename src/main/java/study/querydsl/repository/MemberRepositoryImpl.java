@@ -1,79 +1,94 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.repository.ReadOnlyQueries.readOnly;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+@Transactional(readOnly = true) //조회만 있으므로 읽기 전용 트랜잭션 (replica 라우팅 대상)
 public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom{
 
 
    private final JPAQueryFactory queryFactory;
+   private final MemberCountCache memberCountCache;
+   private final ParallelPageExecutor parallelPageExecutor;
+   private final MemberSearch memberSearch;
+   private final TeamNameDictionary teamNameDictionary;
+   private final int idChunkSize;
+   private final MemberSortTranslator memberSortTranslator;
     /*
     public MemberRepositoryImpl(EntityManager em){
         this.queryFactory = new JPAQueryFactory(em);
     }*/
 
-       public MemberRepositoryImpl(EntityManager em){
+       public MemberRepositoryImpl(JPAQueryFactory queryFactory, MemberCountCache memberCountCache, ParallelPageExecutor parallelPageExecutor,
+                                   MemberSearch memberSearch, TeamNameDictionary teamNameDictionary,
+                                   @Value("${member.find-by-ids.chunk-size:512}") int idChunkSize,
+                                   MemberSortTranslator memberSortTranslator){
            super(Member.class);
-           queryFactory = new JPAQueryFactory(em);
+           this.queryFactory = queryFactory;
+           this.memberCountCache = memberCountCache;
+           this.parallelPageExecutor = parallelPageExecutor;
+           this.memberSearch = memberSearch;
+           this.teamNameDictionary = teamNameDictionary;
+           if (idChunkSize < 1 || Integer.bitCount(idChunkSize) != 1) {
+               throw new IllegalArgumentException("member.find-by-ids.chunk-size는 2의 거듭제곱이어야 합니다: " + idChunkSize);
+           }
+           this.idChunkSize = idChunkSize;
+           this.memberSortTranslator = memberSortTranslator;
        }
 
+    /**
+     * QuerydslRepositorySupport의 from()도 JPAQueryFactory 빈으로 만들어서 쿼리 지표에 포함시킨다.
+     */
     @Override
-    public List<MemberTeamDto> search(MemberSearchCondition condition){
-        //Impl에서 QuerydslRepositorySupport를 extends받을 때
-        EntityManager entityManager = getEntityManager();
-
-        List<MemberTeamDto> result = from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .fetch();
+    protected <T> JPQLQuery<T> from(EntityPath<T> path) {
+        return queryFactory.selectFrom(path);
+    }
 
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition){
+        //member.search.engine 설정에 따라 JPQL 모양 캐시(MemberSearchQueryCache) 또는 querydsl-sql(MemberSqlSearch)
+        return memberSearch.search(condition);
     }
 
 
@@ -92,8 +107,16 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
         return hasText(username) ? member.username.eq(username) : null;
     }
 
+    /**
+     * 팀 이름 사전으로 team id를 찾아서 member.team_id 컬럼으로 비교한다. (count 쿼리에서는 team join이 빠진다.)
+     * 사전을 쓸 수 없을 때(쓰기 트랜잭션 등)만 team.name으로 비교
+     */
     private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+        if (!hasText(teamName)) {
+            return null;
+        }
+        Set<Long> teamIds = teamNameDictionary.teamIdsOf(teamName);
+        return teamIds != null ? member.team.id.in(teamIds) : team.name.eq(teamName);
     }
 
     private BooleanExpression ageGoe(Integer ageGoe) {
@@ -106,7 +129,7 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> result = queryFactory
+        List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -121,12 +144,12 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(memberSortTranslator.toOrderSpecifiers(pageable.getSort())) //화이트리스트 정렬
                 .offset(pageable.getOffset()) //페이징 처리
                 .limit(pageable.getPageSize()) //페이징 처리
-                .fetchResults();//컨텐츠 쿼리 + 카운트 쿼리 두개 날려줌.
-        List<MemberTeamDto> content = result.getResults();
-        long total = result.getTotal();
-        return new PageImpl<>(content, pageable, total);
+                .fetch();
+        //fetchResults()는 컨텐츠 쿼리의 join을 그대로 가진 count 쿼리를 날리므로 count는 따로 만든다.
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery(condition).fetchCount());
     }
 
     public Page<MemberTeamDto> searchPageSimple2(MemberSearchCondition condition, Pageable pageable) {
@@ -144,22 +167,26 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         member.username,
                         member.age,
                         team.id.as("teamId"),
-                        team.name.as("teamName")));
-
+                        team.name.as("teamName")))
+                .orderBy(memberSortTranslator.toOrderSpecifiers(pageable.getSort()));
 
-        JPQLQuery<MemberTeamDto> query = getQuerydsl().applyPagination(pageable, jpaQuery);//이걸 사용하게 된다면 offset, limit 사용 X , applyPagination에서 처리해줌.
-        //Sort 불가능
 
-        QueryResults<MemberTeamDto> result = query.fetchResults();
+        //이걸 사용하게 된다면 offset, limit 사용 X , applyPagination에서 처리해줌.
+        //applyPagination의 Sort는 alias 기준이라 화이트리스트를 거치지 않으므로 정렬은 위에서 하고 페이징만 맡긴다.
+        JPQLQuery<MemberTeamDto> query = getQuerydsl().applyPagination(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()), jpaQuery);
 
-        List<MemberTeamDto> content = result.getResults();
-        long total = result.getTotal();
-        return new PageImpl<>(content, pageable, total);
+        List<MemberTeamDto> content = query.fetch();
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery(condition).fetchCount());
     }
 
+    /**
+     * SUPPORTS : 호출한 쪽에 트랜잭션이 없으면 여기서 만들지 않는다. (ParallelPageExecutor가 병렬 실행할 수 있도록)
+     * readOnly 표시는 남으므로 순차 실행할 때도 replica로 라우팅된다.
+     */
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Page<MemberTeamDto> searchPageComlex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
+        JPAQuery<MemberTeamDto> contentQuery = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -174,13 +201,28 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .orderBy(memberSortTranslator.toOrderSpecifiers(pageable.getSort())) //화이트리스트 정렬
                 .offset(pageable.getOffset()) //페이징 처리
-                .limit(pageable.getPageSize()) //페이징 처리
-                .fetch();//컨텐츠 쿼리만 날려줌
+                .limit(pageable.getPageSize()); //페이징 처리
 
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
+        CountQueryBuilder countQuery = countQuery(condition);
+
+        //member.search.parallel-count.enabled=true 이면 컨텐츠 쿼리와 count 쿼리를 동시에 실행
+        return parallelPageExecutor.getPage(contentQuery::fetch, pageable, ()-> memberCountCache.get(condition, countQuery::fetchCount));
+        /**
+         * 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
+         * 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
+         */
+
+        //return new PageImpl<>(content, pageable,count);
+    }
+
+    /**
+     * 페이징 검색 공통 count 쿼리
+     * teamName 조건이 없거나 팀 이름 사전으로 team id 조건이 되면 team join 없이 select count(member.id) from member 만 나간다.
+     */
+    private CountQueryBuilder countQuery(MemberSearchCondition condition) {
+        return CountQueryBuilder.countOf(queryFactory, member, member.id)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
@@ -188,14 +230,204 @@ public class MemberRepositoryImpl extends QuerydslRepositorySupport implements M
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 );
+    }
 
-        return PageableExecutionUtils.getPage(content,pageable,()-> countQuery.fetchCount());
-        /**
-         * 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
-         * 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
-         */
+    /**
+     * fields로 요청한 컬럼만 select (Tuple)
+     * teamName을 요청하지 않고 where 조건도 team을 참조하지 않으면 team join을 하지 않는다.
+     * 결과는 요청한 필드만 가진 Map (null로 채운 나머지 필드 X)
+     */
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+        return toMaps(fieldsQuery(condition, fields).fetch(), fields);
+    }
 
-        //return new PageImpl<>(content, pageable,count);
+    /**
+     * searchPageSimple의 fields 버전 (/v2) : count 캐시, 병렬 실행 없이 컨텐츠 조회 후 필요할 때만 count
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageSimpleFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable) {
+        List<Map<String, Object>> content = toMaps(fieldsQuery(condition, fields)
+                .orderBy(memberSortTranslator.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch(), fields);
+        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery(condition).fetchCount());
+    }
+
+    /**
+     * searchPageComlex의 fields 버전 (/v3)
+     */
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS) //searchPageComlex와 같은 이유
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable) {
+        JPAQuery<Tuple> contentQuery = fieldsQuery(condition, fields)
+                .orderBy(memberSortTranslator.toOrderSpecifiers(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        CountQueryBuilder countQuery = countQuery(condition);
+        return parallelPageExecutor.getPage(() -> toMaps(contentQuery.fetch(), fields), pageable,
+                () -> memberCountCache.get(condition, countQuery::fetchCount));
+    }
+
+    private JPAQuery<Tuple> fieldsQuery(MemberSearchCondition condition, Set<MemberField> fields) {
+        BooleanExpression[] where = {
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+        JPAQuery<Tuple> query = queryFactory
+                .select(fields.stream().map(MemberRepositoryImpl::expressionOf).toArray(Expression[]::new))
+                .from(member);
+        if (needsTeamJoin(fields, where)) {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(where);
+    }
+
+    private static boolean needsTeamJoin(Set<MemberField> fields, BooleanExpression[] where) {
+        if (fields.stream().anyMatch(MemberField::isTeamJoin)) {
+            return true;
+        }
+        Set<Expression<?>> roots = new HashSet<>();
+        for (BooleanExpression predicate : where) {
+            if (predicate != null) {
+                predicate.accept(CountQueryBuilder.RootCollector.INSTANCE, roots);
+            }
+        }
+        return roots.contains(team);
+    }
+
+    private static Expression<?> expressionOf(MemberField field) {
+        switch (field) {
+            case MEMBER_ID: return member.id;
+            case USERNAME: return member.username;
+            case AGE: return member.age;
+            case TEAM_ID: return member.team.id;
+            case TEAM_NAME: return team.name;
+            default: throw new IllegalArgumentException("알 수 없는 field입니다: " + field);
+        }
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> tuples, Set<MemberField> fields) {
+        List<Map<String, Object>> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            int i = 0;
+            for (MemberField field : fields) {
+                row.put(field.getProperty(), tuple.get(i++, Object.class));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    /**
+     * id 목록으로 회원 조회 (입력 순서대로, 없는 id와 중복 id는 빠진다)
+     * id를 idChunkSize 개씩 나눠서 in 쿼리를 보내고, 각 in 목록은 2의 거듭제곱 크기로 채운다.
+     * in 절 파라미터 수가 1, 2, 4, ... idChunkSize 로만 나오므로 Hibernate 쿼리 플랜 캐시에 쌓이는 쿼리 모양이 몇 개 안 된다.
+     * 청크는 같은 커넥션에서 연달아 실행하고 도착하는 대로 id별로 모아서 마지막에 입력 순서로 정렬한다.
+     * 조회한 엔티티는 읽기 전용 (ReadOnlyQueries)
+     */
+    @Override
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<Long, Member> found = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += idChunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + idChunkSize, distinctIds.size()));
+            for (Member findMember : readOnly(queryFactory.selectFrom(member).where(member.id.in(padded(chunk)))).fetch()) {
+                found.put(findMember.getId(), findMember);
+            }
+        }
+
+        List<Member> result = new ArrayList<>(found.size());
+        for (Long id : distinctIds) {
+            Member findMember = found.get(id);
+            if (findMember != null) {
+                result.add(findMember);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 다음 2의 거듭제곱 크기까지 마지막 id를 반복해서 채운다. (결과는 같고 파라미터 수만 맞춰짐)
+     */
+    static List<Long> padded(List<Long> chunk) {
+        int size = Integer.highestOneBit(chunk.size());
+        if (size < chunk.size()) {
+            size <<= 1;
+        }
+        List<Long> padded = new ArrayList<>(size);
+        padded.addAll(chunk);
+        Long last = chunk.get(chunk.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    /**
+     * 키셋(seek) 페이징
+     * offset 대신 마지막으로 읽은 row 이후 조건을 where에 넣기 때문에 몇 번째 페이지든 버리는 row가 없다.
+     * size + 1개를 조회해서 다음 페이지 존재 여부를 판단한다. (count 쿼리 X)
+     */
+    @Override
+    public MemberSlice searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다: " + size);
+        }
+        List<MemberTeamDto> result = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe()),
+                        cursorAfter(cursor)
+                )
+                .orderBy(cursorOrder(cursor))
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasNext = result.size() > size;
+        List<MemberTeamDto> content = hasNext ? new ArrayList<>(result.subList(0, size)) : result;
+        String nextCursor = hasNext
+                ? MemberCursor.after(cursor.getSortKey(), content.get(content.size() - 1)).encode()
+                : null;
+        return new MemberSlice(content, hasNext, nextCursor);
+    }
+
+    private BooleanExpression cursorAfter(MemberCursor cursor) {
+        if (cursor.isFirst()) {
+            return null;
+        }
+        if (cursor.getSortKey() == MemberCursor.SortKey.AGE) {
+            //(age, id) > (:age, :id)
+            return member.age.gt(cursor.getAge())
+                    .or(member.age.eq(cursor.getAge()).and(member.id.gt(cursor.getMemberId())));
+        }
+        return member.id.gt(cursor.getMemberId());
+    }
+
+    private OrderSpecifier<?>[] cursorOrder(MemberCursor cursor) {
+        if (cursor.getSortKey() == MemberCursor.SortKey.AGE) {
+            return new OrderSpecifier<?>[]{member.age.asc(), member.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{member.id.asc()};
     }
 
 }
@@ -0,0 +1,17 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.List;
+
+/**
+ * search(MemberSearchCondition) 구현
+ * - MemberSearchQueryCache : JPQL (JPA)
+ * - MemberSqlSearch : querydsl-sql (JDBC)
+ * member.search.engine 설정으로 선택한다. (QuerydslSqlConfig)
+ */
+public interface MemberSearch {
+
+    List<MemberTeamDto> search(MemberSearchCondition condition);
+}
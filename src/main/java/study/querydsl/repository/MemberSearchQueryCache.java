@@ -0,0 +1,163 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * search(MemberSearchCondition) 쿼리 모양 캐시
+ * 조건 4개의 존재 여부로 모양은 16가지 뿐이므로 모양별로 JPQL과 파라미터 위치를 한번만 만들어 두고
+ * 호출마다 값만 바인딩한다. (BooleanExpression 생성, JPQL 직렬화 X / Hibernate는 같은 JPQL 문자열로 쿼리 플랜 캐시 재사용)
+ * teamName은 팀 이름 사전(TeamNameDictionary)을 쓸 수 있으면 team.name 대신 member.team.id in (?n) 모양을 사용한다.
+ */
+@Component
+public class MemberSearchQueryCache implements MemberSearch {
+
+    private static final int USERNAME = 0;
+    private static final int TEAM_NAME = 1;
+    private static final int AGE_GOE = 2;
+    private static final int AGE_LOE = 3;
+    private static final int TEAM_ID = 4;
+
+    //모양을 만들 때 파라미터 위치를 찾기 위한 값 (서로 달라야 한다, team id는 in 절이 eq로 바뀌지 않도록 2개)
+    private static final Object[] SLOT_VALUES = {"\u0000username", "\u0000teamName", Integer.MIN_VALUE, Integer.MAX_VALUE,
+            Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE)};
+
+    private final EntityManager em;
+    private final QueryMetrics queryMetrics;
+    private final TeamNameDictionary teamNameDictionary;
+    private final Shape[] shapes = new Shape[1 << SLOT_VALUES.length];
+
+    public MemberSearchQueryCache(EntityManager em, QueryMetrics queryMetrics, TeamNameDictionary teamNameDictionary) {
+        this.em = em;
+        this.queryMetrics = queryMetrics;
+        this.teamNameDictionary = teamNameDictionary;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        Object[] values = valuesOf(condition);
+        if (values[TEAM_ID] != null && ((Collection<?>) values[TEAM_ID]).isEmpty()) {
+            return new ArrayList<>(); //삭제된 팀 이름이면 조회할 필요가 없다. (사전에 없는 이름은 team.name 조건)
+        }
+        Shape shape = shapeOf(values);
+
+        Query query = em.createQuery(shape.jpql);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                query.setParameter(shape.positions[i], values[i]);
+            }
+        }
+        if (queryMetrics.isEnabled()) {
+            return queryMetrics.record("fetch", "Member", shape.jpql, () -> toDtos(query.getResultList()), List::size);
+        }
+        return toDtos(query.getResultList());
+    }
+
+    String jpqlOf(MemberSearchCondition condition) {
+        return shapeOf(valuesOf(condition)).jpql;
+    }
+
+    //usernameEq, teamNameEq, ageGoe, ageLoe 와 같은 기준 (빈 문자열은 조건 없음)
+    private Object[] valuesOf(MemberSearchCondition condition) {
+        String teamName = hasText(condition.getTeamName()) ? condition.getTeamName() : null;
+        Set<Long> teamIds = teamName != null ? teamNameDictionary.teamIdsOf(teamName) : null;
+        return new Object[]{
+                hasText(condition.getUsername()) ? condition.getUsername() : null,
+                teamIds == null ? teamName : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                teamIds
+        };
+    }
+
+    private Shape shapeOf(Object[] values) {
+        int mask = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        //같은 모양을 동시에 만들어도 결과가 같으므로 동기화하지 않는다.
+        Shape shape = shapes[mask];
+        if (shape == null) {
+            shape = render(mask);
+            shapes[mask] = shape;
+        }
+        return shape;
+    }
+
+    private Shape render(int mask) {
+        JPAQuery<MemberTeamDto> query = new JPAQuery<MemberTeamDto>(em)
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        has(mask, USERNAME) ? member.username.eq((String) SLOT_VALUES[USERNAME]) : null,
+                        has(mask, TEAM_NAME) ? team.name.eq((String) SLOT_VALUES[TEAM_NAME]) : null,
+                        has(mask, AGE_GOE) ? member.age.goe((Integer) SLOT_VALUES[AGE_GOE]) : null,
+                        has(mask, AGE_LOE) ? member.age.loe((Integer) SLOT_VALUES[AGE_LOE]) : null,
+                        has(mask, TEAM_ID) ? member.team.id.in(teamIdSlot()) : null
+                );
+
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(query.getMetadata(), false, null);
+
+        //JPQL의 ?n 은 getConstants()의 n-1 번째 값
+        List<Object> constants = serializer.getConstants();
+        int[] positions = new int[SLOT_VALUES.length];
+        for (int i = 0; i < SLOT_VALUES.length; i++) {
+            positions[i] = constants.indexOf(SLOT_VALUES[i]) + 1;
+        }
+        return new Shape(serializer.toString(), positions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Long> teamIdSlot() {
+        return (Collection<Long>) SLOT_VALUES[TEAM_ID];
+    }
+
+    private static boolean has(int mask, int slot) {
+        return (mask & (1 << slot)) != 0;
+    }
+
+    private static List<MemberTeamDto> toDtos(List<?> rows) {
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            result.add(new MemberTeamDto((Long) columns[0], (String) columns[1], (Integer) columns[2], (Long) columns[3], (String) columns[4]));
+        }
+        return result;
+    }
+
+    private static class Shape {
+        private final String jpql;
+        private final int[] positions; //조건별 파라미터 위치 (?n), 없으면 0
+
+        private Shape(String jpql, int[] positions) {
+            this.jpql = jpql;
+            this.positions = positions;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * Pageable의 Sort -> OrderSpecifier (화이트리스트)
+ * 정렬 키마다 Member에 (컬럼, id) 복합 인덱스가 있어서 깊은 페이지도 인덱스 순서대로 읽는다.
+ * 같은 값끼리 순서가 바뀌지 않도록 항상 member.id를 같은 방향으로 붙인다.
+ * 인덱스를 탈 수 없는 정렬 (화이트리스트 밖의 키, 키 여러 개, ignoreCase, teamName처럼 join이 필요한 키)은
+ * member.search.sort.unindexed 설정에 따라 거부(400)하거나 인덱스를 탈 수 있는 정렬로 낮춘다.
+ */
+@Slf4j
+@Component
+public class MemberSortTranslator {
+
+    public enum UnindexedSort {REJECT, DOWNGRADE}
+
+    //정렬 키 -> 컬럼 (Member의 @Index와 짝을 맞춰야 한다)
+    private static final Map<String, ComparableExpressionBase<?>> SORT_KEYS = Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", member.team.id
+    );
+
+    private static final OrderSpecifier<?>[] UNSORTED = new OrderSpecifier<?>[0];
+
+    private final UnindexedSort unindexedSort;
+
+    public MemberSortTranslator(@Value("${member.search.sort.unindexed:REJECT}") UnindexedSort unindexedSort) {
+        this.unindexedSort = unindexedSort;
+    }
+
+    public OrderSpecifier<?>[] toOrderSpecifiers(Sort sort) {
+        if (sort.isUnsorted()) {
+            return UNSORTED;
+        }
+        List<Sort.Order> orders = sort.toList();
+        String unindexed = unindexedReason(orders);
+        if (unindexed == null) {
+            return orderBy(orders.get(0));
+        }
+        if (unindexedSort == UnindexedSort.REJECT) {
+            throw new IllegalArgumentException("인덱스를 사용할 수 없는 정렬입니다: " + unindexed
+                    + " (정렬 가능한 키: " + String.join(", ", SORT_KEYS.keySet()) + " 중 하나)");
+        }
+        //인덱스를 탈 수 있는 첫번째 키만 남긴다. (없으면 정렬하지 않음)
+        for (Sort.Order order : orders) {
+            if (SORT_KEYS.containsKey(order.getProperty())) {
+                log.debug("Unindexed sort {} downgraded to {} {}", sort, order.getProperty(), order.getDirection());
+                return orderBy(order);
+            }
+        }
+        log.debug("Unindexed sort {} ignored", sort);
+        return UNSORTED;
+    }
+
+    /**
+     * @return 인덱스를 탈 수 없는 이유, 탈 수 있으면 null
+     */
+    private static String unindexedReason(List<Sort.Order> orders) {
+        for (Sort.Order order : orders) {
+            if (!SORT_KEYS.containsKey(order.getProperty())) {
+                return order.getProperty();
+            }
+            if (order.isIgnoreCase()) {
+                return order.getProperty() + " ignoreCase";
+            }
+            if (order.getNullHandling() != Sort.NullHandling.NATIVE) {
+                return order.getProperty() + " " + order.getNullHandling();
+            }
+        }
+        if (orders.size() == 1) {
+            return null;
+        }
+        //(키, memberId) 는 인덱스 순서 그대로라 허용 (방향이 같을 때)
+        Sort.Order first = orders.get(0);
+        Sort.Order second = orders.get(1);
+        if (orders.size() == 2 && second.getProperty().equals("memberId") && second.getDirection() == first.getDirection()) {
+            return null;
+        }
+        return Sort.by(orders).toString();
+    }
+
+    private static OrderSpecifier<?>[] orderBy(Sort.Order order) {
+        ComparableExpressionBase<?> key = SORT_KEYS.get(order.getProperty());
+        boolean asc = order.isAscending();
+        if (key == member.id) {
+            return new OrderSpecifier<?>[]{asc ? member.id.asc() : member.id.desc()};
+        }
+        return new OrderSpecifier<?>[]{asc ? key.asc() : key.desc(), asc ? member.id.asc() : member.id.desc()};
+    }
+}
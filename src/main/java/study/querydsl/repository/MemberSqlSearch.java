@@ -0,0 +1,90 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.sql.SQLQueryFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * search(MemberSearchCondition)의 querydsl-sql 구현
+ * JPQL 변환, Hibernate 결과 변환, 영속성 컨텍스트를 거치지 않고 JDBC row를 바로 MemberTeamDto로 만든다.
+ * 스프링 트랜잭션의 커넥션을 같이 사용하므로 트랜잭션 안에서 호출해야 한다. (SpringConnectionProvider)
+ * 읽기-쓰기 트랜잭션이면 조회 전에 flush 한다. (JPQL의 auto flush처럼 아직 반영 안된 persist/변경이 보이도록)
+ */
+@Component
+public class MemberSqlSearch implements MemberSearch {
+
+    private static final SMember m = new SMember("m");
+    private static final STeam t = new STeam("t");
+    //그 이름의 팀이 모두 삭제되었을 때 (조회하지 않고 빈 결과)
+    private static final BooleanExpression NO_TEAM = m.teamId.isNull().and(m.teamId.isNotNull());
+
+    private final SQLQueryFactory sqlQueryFactory;
+    private final TeamNameDictionary teamNameDictionary;
+    private final EntityManager em;
+
+    public MemberSqlSearch(SQLQueryFactory sqlQueryFactory, TeamNameDictionary teamNameDictionary, EntityManager em) {
+        this.sqlQueryFactory = sqlQueryFactory;
+        this.teamNameDictionary = teamNameDictionary;
+        this.em = em;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        BooleanExpression teamNameEq = teamNameEq(condition.getTeamName());
+        if (teamNameEq == NO_TEAM) {
+            return new ArrayList<>(); //삭제된 팀 이름이면 조회할 필요가 없다.
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            em.flush();
+        }
+        return sqlQueryFactory
+                .select(new QMemberTeamDto(m.id, m.username, m.age, t.id, t.name))
+                .from(m)
+                .leftJoin(t).on(m.teamId.eq(t.id))
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq,
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .fetch();
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? m.username.eq(username) : null;
+    }
+
+    //팀 이름 사전을 쓸 수 있으면 team.name 대신 member.team_id 컬럼으로 비교 (TeamNameDictionary)
+    private BooleanExpression teamNameEq(String teamName) {
+        if (!hasText(teamName)) {
+            return null;
+        }
+        Set<Long> teamIds = teamNameDictionary.teamIdsOf(teamName);
+        if (teamIds == null) {
+            return t.name.eq(teamName);
+        }
+        return teamIds.isEmpty() ? NO_TEAM : m.teamId.in(teamIds);
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? m.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? m.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 배치/분석 작업용 회원 전체 스캔 (StatelessSession)
+ * - 영속성 컨텍스트(1차 캐시), 스냅샷, dirty checking 없음 -> 건수와 상관없이 힙 사용량은 batchSize 만큼
+ * - team은 fetch join으로 같이 읽어서 지연 로딩 프록시가 없다. (StatelessSession은 지연 로딩 불가)
+ * - forward-only 커서로 fetchSize 만큼씩 읽고 batchSize 개씩 consumer에 넘긴다.
+ * 넘겨받은 Member는 준영속 상태이므로 수정해도 반영되지 않는다.
+ * 스프링 트랜잭션과 별개의 커넥션을 사용하므로 커밋된 데이터만 보인다.
+ */
+@Slf4j
+@Repository
+public class MemberStatelessScanner {
+
+    private final SessionFactory sessionFactory;
+    private final int fetchSize;
+
+    public MemberStatelessScanner(EntityManagerFactory emf, @Value("${member.scan.fetch-size:1000}") int fetchSize) {
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param predicate QMember 기준 조건 (null이면 전체)
+     * @param consumer  batchSize 개씩 (마지막 batch는 더 작을 수 있음), 넘겨받은 List는 다음 batch에서 재사용하지 않는다.
+     */
+    public ScanResult scan(Predicate predicate, int batchSize, Consumer<List<Member>> consumer) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize는 1 이상이어야 합니다: " + batchSize);
+        }
+        long start = System.nanoTime();
+        long rows = 0;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults results = new HibernateQuery<Member>(session)
+                    .select(member)
+                    .from(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(predicate)
+                    .orderBy(member.id.asc())
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                List<Member> batch = new ArrayList<>(batchSize);
+                while (results.next()) {
+                    batch.add((Member) results.get(0));
+                    rows++;
+                    if (batch.size() == batchSize) {
+                        consumer.accept(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    consumer.accept(batch);
+                }
+            } finally {
+                transaction.rollback(); //조회만 했으므로 커밋할 것이 없다.
+            }
+        }
+        ScanResult result = new ScanResult(rows, Duration.ofNanos(System.nanoTime() - start));
+        log.info("Member scan: {} rows in {}ms ({} rows/s)", result.getRows(), result.getElapsed().toMillis(), (long) result.getRowsPerSecond());
+        return result;
+    }
+
+    @Getter
+    public static class ScanResult {
+        private final long rows;
+        private final Duration elapsed;
+        private final double rowsPerSecond;
+
+        ScanResult(long rows, Duration elapsed) {
+            this.rows = rows;
+            this.elapsed = elapsed;
+            long nanos = Math.max(elapsed.toNanos(), 1);
+            this.rowsPerSecond = rows * 1_000_000_000d / nanos;
+        }
+    }
+}
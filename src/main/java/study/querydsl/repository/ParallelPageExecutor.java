@@ -0,0 +1,185 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 페이징 컨텐츠 쿼리와 count 쿼리를 동시에 실행 (member.search.parallel-count.enabled=true 일 때만)
+ * 각 쿼리는 작업 스레드에서 별도의 읽기 전용 트랜잭션(= 별도 EntityManager, 커넥션)으로 실행된다.
+ * 한쪽이 실패하거나 timeout이 지나면 나머지를 취소하고 예외를 던진다.
+ * 호출한 스레드에 이미 트랜잭션이 있으면 다른 스레드에서는 커밋 전 데이터가 보이지 않으므로 순차 실행한다.
+ * (repository 메서드는 Propagation.SUPPORTS 로 호출해야 한다. REQUIRED면 항상 트랜잭션 안이라 병렬 실행되지 않는다.)
+ *
+ * 지표 : member.page.parallel (전체 시간), member.page.parallel.saved (순차 실행 대비 줄어든 시간),
+ *        member.page.parallel.fallback{reason}
+ */
+@Component
+public class ParallelPageExecutor {
+
+    private final boolean enabled;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTx;
+    private final Timer parallelTimer;
+    private final Timer savedTimer;
+    private final MeterRegistry meterRegistry;
+
+    public ParallelPageExecutor(PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${member.search.parallel-count.enabled:false}") boolean enabled,
+                                @Value("${member.search.parallel-count.pool-size:8}") int poolSize,
+                                @Value("${member.search.parallel-count.queue-capacity:100}") int queueCapacity,
+                                @Value("${member.search.parallel-count.timeout:5s}") Duration timeout) {
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("page-query-"));
+
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        readOnlyTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        readOnlyTx.setTimeout((int) Math.max(1, timeout.getSeconds())); //쿼리 timeout으로도 적용됨
+
+        this.meterRegistry = meterRegistry;
+        this.parallelTimer = meterRegistry.timer("member.page.parallel");
+        this.savedTimer = meterRegistry.timer("member.page.parallel.saved");
+    }
+
+    public <T> Page<T> getPage(Supplier<List<T>> contentQuery, Pageable pageable, LongSupplier countQuery) {
+        if (!enabled) {
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            fallback("transaction");
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery);
+        }
+
+        long start = System.nanoTime();
+        AtomicReference<List<T>> content = new AtomicReference<>();
+        AtomicLong total = new AtomicLong();
+
+        CompletionService<Long> completion = new ExecutorCompletionService<>(executor);
+        Future<Long> contentFuture;
+        Future<Long> countFuture;
+        try {
+            contentFuture = completion.submit(timed(() -> content.set(readOnlyTx.execute(status -> contentQuery.get()))));
+        } catch (RejectedExecutionException e) {
+            fallback("rejected");
+            return PageableExecutionUtils.getPage(contentQuery.get(), pageable, countQuery);
+        }
+        try {
+            countFuture = completion.submit(timed(() -> total.set(readOnlyTx.execute(status -> countQuery.getAsLong()))));
+        } catch (RejectedExecutionException e) {
+            //컨텐츠 쿼리는 이미 작업 스레드에서 돌고 있으므로 count만 여기서 실행
+            fallback("rejected");
+            long count = countQuery.getAsLong();
+            return PageableExecutionUtils.getPage(await(contentFuture, content), pageable, () -> count);
+        }
+
+        long sequentialNanos = 0;
+        try {
+            long deadline = start + timeout.toNanos();
+            for (int i = 0; i < 2; i++) {
+                Future<Long> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    throw new QueryTimeoutException("페이징 쿼리가 " + timeout + " 안에 끝나지 않았습니다.");
+                }
+                sequentialNanos += done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("페이징 쿼리 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } finally {
+            //이미 끝난 쪽은 영향 없음, 실패/timeout 시 남은 쪽 취소
+            contentFuture.cancel(true);
+            countFuture.cancel(true);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        parallelTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        savedTimer.record(Math.max(0, sequentialNanos - elapsed), TimeUnit.NANOSECONDS);
+        return PageableExecutionUtils.getPage(content.get(), pageable, total::get);
+    }
+
+    private <T> List<T> await(Future<Long> future, AtomicReference<List<T>> result) {
+        try {
+            future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("페이징 쿼리 대기 중 인터럽트", e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QueryTimeoutException("페이징 쿼리가 " + timeout + " 안에 끝나지 않았습니다.");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 작업을 실행하고 걸린 시간(ns)을 돌려준다.
+     */
+    private Callable<Long> timed(Runnable task) {
+        return () -> {
+            long start = System.nanoTime();
+            task.run();
+            return System.nanoTime() - start;
+        };
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private void fallback(String reason) {
+        Counter.builder("member.page.parallel.fallback")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
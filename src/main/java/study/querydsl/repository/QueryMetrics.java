@@ -0,0 +1,89 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Querydsl 쿼리 실행 지표
+ * - querydsl.query{operation,entity,shape,outcome} : 실행 시간 (히스토그램)
+ * - querydsl.query.rows{operation,entity,shape} : 조회/변경 row 수
+ * shape는 파라미터를 제외한 JPQL 모양의 해시, 실제 JPQL은 /actuator/querydslshapes 에서 확인한다.
+ * 모양이 max-shapes를 넘으면 "other"로 묶어서 태그 수가 늘어나지 않게 한다.
+ */
+@Component
+public class QueryMetrics {
+
+    static final String OTHER = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxShapes;
+    private final Map<String, String> shapes = new ConcurrentHashMap<>(); //JPQL -> shape
+
+    public QueryMetrics(MeterRegistry meterRegistry,
+                        @Value("${querydsl.metrics.enabled:false}") boolean enabled,
+                        @Value("${querydsl.metrics.max-shapes:200}") int maxShapes) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxShapes = maxShapes;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T record(String operation, String entity, String jpql, Supplier<T> execution, ToLongFunction<T> rows) {
+        String shape = shapeOf(jpql);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = execution.get();
+            outcome = "success";
+            DistributionSummary.builder("querydsl.query.rows")
+                    .tag("operation", operation)
+                    .tag("entity", entity)
+                    .tag("shape", shape)
+                    .register(meterRegistry)
+                    .record(rows.applyAsLong(result));
+            return result;
+        } finally {
+            sample.stop(Timer.builder("querydsl.query")
+                    .tag("operation", operation)
+                    .tag("entity", entity)
+                    .tag("shape", shape)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    String shapeOf(String jpql) {
+        String shape = shapes.get(jpql);
+        if (shape != null) {
+            return shape;
+        }
+        if (shapes.size() >= maxShapes) {
+            return OTHER;
+        }
+        return shapes.computeIfAbsent(jpql, key -> String.format("%08x", key.hashCode()));
+    }
+
+    /**
+     * shape -> JPQL
+     */
+    public Map<String, String> shapes() {
+        Map<String, String> result = new LinkedHashMap<>();
+        shapes.forEach((jpql, shape) -> result.put(shape, jpql));
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.TypedQuery;
+
+/**
+ * 엔티티 조회 쿼리를 읽기 전용으로 실행하기 위한 힌트
+ * - org.hibernate.readOnly : 조회한 엔티티의 스냅샷(dirty checking용 상태 복사본)을 만들지 않는다.
+ *   (이미 영속성 컨텍스트에 있던 엔티티는 그대로)
+ * - org.hibernate.flushMode=MANUAL : 쿼리 전 자동 flush를 하지 않는다.
+ * 쓰기 트랜잭션에 참여한 조회에는 둘 다 적용하지 않는다.
+ * 호출한 쪽이 조회한 엔티티를 수정하면 update가 나가야 하고, 아직 flush 되지 않은 변경도 결과에 보여야 한다.
+ */
+final class ReadOnlyQueries {
+
+    private ReadOnlyQueries() {
+    }
+
+    static <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        if (!inWriteTransaction()) {
+            query.setHint(QueryHints.READ_ONLY, true);
+            query.setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+
+    static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        if (!inWriteTransaction()) {
+            query.setHint(QueryHints.READ_ONLY, true);
+            query.setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -0,0 +1,173 @@
+package study.querydsl.repository;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 팀 이름 -> team id 사전
+ * teamName 조건을 team.name 문자열 비교(team join) 대신 member.team.id in (..) 로 바꾸기 위해 사용한다.
+ * 시작할 때 Team 전체를 읽어 두고, Team의 insert/update/delete가 커밋되면 리스너로 반영한다.
+ * 팀 이름은 unique가 아니므로 이름 하나에 id가 여러 개일 수 있다.
+ * 사전에 없는 이름은 "팀이 없다"로 단정하지 않는다. (다른 경로로 들어온 Team일 수 있으므로 team.name 조건으로 조회)
+ * 삭제 이벤트로 마지막 id가 빠진 이름만 빈 Set으로 돌려준다.
+ * (벌크 연산(execute)은 이벤트가 발생하지 않으므로 직접 reload()를 호출해야 한다.)
+ */
+@Component
+public class TeamNameDictionary implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final boolean enabled;
+
+    //Team은 거의 변경되지 않으므로 변경 시 통째로 새로 만들고(copy-on-write) 조회는 락 없이 읽는다.
+    private volatile Map<String, Set<Long>> idsByName = Collections.emptyMap();
+    private final Map<Long, String> nameById = new HashMap<>(); //변경 반영용 (synchronized 안에서만 사용)
+    private final Set<String> deletedNames = new HashSet<>(); //삭제가 커밋되어 남은 팀이 없는 이름 (synchronized 안에서만 사용)
+
+    public TeamNameDictionary(EntityManagerFactory emf,
+                              @Value("${member.team-dictionary.enabled:true}") boolean enabled) {
+        this.emf = emf;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void register() {
+        if (!enabled) {
+            return;
+        }
+        //리스너를 먼저 등록하고 읽어야 그 사이에 커밋된 Team이 빠지지 않는다.
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        reload();
+    }
+
+    /**
+     * @return 이름이 teamName인 team id, 삭제가 커밋되어 남은 팀이 없는 이름이면 빈 Set
+     *         사전에 없는 이름이거나 사전을 쓸 수 없으면 null -> team.name 조건을 그대로 사용할 것
+     */
+    public Set<Long> teamIdsOf(String teamName) {
+        if (!enabled) {
+            return null;
+        }
+        //쓰기 트랜잭션 안에서는 아직 커밋되지 않은 Team이 사전에 없으므로 사용하지 않는다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        return idsByName.get(teamName);
+    }
+
+    /**
+     * DB에서 Team 전체를 다시 읽는다.
+     */
+    public synchronized void reload() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Object[]> rows = em.createQuery("select t.id, t.name from Team t", Object[].class)
+                    .getResultList();
+            nameById.clear();
+            deletedNames.clear();
+            for (Object[] row : rows) {
+                nameById.put((Long) row[0], (String) row[1]);
+            }
+        } finally {
+            em.close();
+        }
+        publish();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Team) {
+            put((Long) event.getId(), ((Team) event.getEntity()).getName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Team) {
+            put((Long) event.getId(), ((Team) event.getEntity()).getName());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Team) {
+            remove((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Team.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    private synchronized void put(Long teamId, String name) {
+        String oldName = nameById.put(teamId, name);
+        deletedNames.remove(name);
+        markDeletedIfUnused(oldName); //이름 변경
+        publish();
+    }
+
+    private synchronized void remove(Long teamId) {
+        markDeletedIfUnused(nameById.remove(teamId));
+        publish();
+    }
+
+    private void markDeletedIfUnused(String name) {
+        if (name != null && !nameById.containsValue(name)) {
+            deletedNames.add(name);
+        }
+    }
+
+    private void publish() {
+        Map<String, Set<Long>> map = new HashMap<>();
+        nameById.forEach((teamId, name) -> {
+            if (name != null) {
+                map.computeIfAbsent(name, key -> new LinkedHashSet<>()).add(teamId);
+            }
+        });
+        map.replaceAll((name, ids) -> Collections.unmodifiableSet(ids));
+        deletedNames.forEach(name -> map.put(name, Collections.emptySet()));
+        idsByName = Collections.unmodifiableMap(map);
+    }
+}
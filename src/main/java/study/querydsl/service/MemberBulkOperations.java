@@ -0,0 +1,234 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.MemberCountCache;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 벌크 update/delete를 조건에 맞는 row chunk-size 개씩 나눠서 실행 (키셋)
+ * - 구간의 끝 id는 select id from member where 조건 and id > 이전 끝 order by id limit 1 offset chunk-size - 1 로 구한다.
+ *   (없으면 시작할 때 구한 max id) id가 듬성듬성해도 구간마다 처리하는 row 수가 chunk-size를 넘지 않는다.
+ * - 구간마다 별도의 짧은 트랜잭션 -> 한번에 잠그는 row가 구간 안으로 제한되고 락을 오래 잡지 않는다.
+ * - execute()는 영속성 컨텍스트를 거치지 않으므로 구간마다 em.clear() 해서 이전에 조회해 둔 Member가 남지 않게 한다.
+ *   (open-in-view처럼 트랜잭션 밖에서 EntityManager가 살아 있는 경우)
+ * - 이벤트가 발생하지 않으므로 count 캐시는 구간이 커밋될 때마다 직접 비운다.
+ * 시작할 때 조건에 맞는 id의 min/max를 구해 두므로 그 이후에 추가된 회원은 대상이 아니다.
+ * 구간마다 커밋되므로 중간에 실패하면 앞 구간까지만 반영된다.
+ * JPQL 벌크 update/delete는 join을 할 수 없으므로 조건에 member.team.name 같은 연관 경로는 쓸 수 없다. (IllegalArgumentException)
+ * 팀으로 거를 때는 member.team.id 나 서브쿼리(member.team.id.in(JPAExpressions.select(team.id)...))를 사용할 것
+ */
+@Slf4j
+@Service
+public class MemberBulkOperations {
+
+    private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberCountCache memberCountCache;
+    private final long chunkSize;
+
+    public MemberBulkOperations(JPAQueryFactory queryFactory,
+                                EntityManager em,
+                                PlatformTransactionManager transactionManager,
+                                MemberCountCache memberCountCache,
+                                @Value("${member.bulk-operation.chunk-size:1000}") long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("member.bulk-operation.chunk-size는 1 이상이어야 합니다: " + chunkSize);
+        }
+        this.queryFactory = queryFactory;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.memberCountCache = memberCountCache;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * memberBulkOperations.update(member.age.lt(28), clause -> clause.set(member.username, "비회원"));
+     * @return 변경된 row 수
+     */
+    public long update(Predicate predicate, UnaryOperator<JPAUpdateClause> assignments) {
+        return update(predicate, assignments, progress -> { });
+    }
+
+    public long update(Predicate predicate, UnaryOperator<JPAUpdateClause> assignments, Consumer<Progress> listener) {
+        return run("update", predicate, listener,
+                (from, to) -> assignments.apply(queryFactory.update(member))
+                        .where(predicate, member.id.gt(from), member.id.loe(to))
+                        .execute());
+    }
+
+    /**
+     * @return 삭제된 row 수
+     */
+    public long delete(Predicate predicate) {
+        return delete(predicate, progress -> { });
+    }
+
+    public long delete(Predicate predicate, Consumer<Progress> listener) {
+        return run("delete", predicate, listener,
+                (from, to) -> queryFactory.delete(member)
+                        .where(predicate, member.id.gt(from), member.id.loe(to))
+                        .execute());
+    }
+
+    private long run(String operation, Predicate predicate, Consumer<Progress> listener, ChunkExecution execution) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            //바깥 트랜잭션에 참여하면 구간별 커밋이 안되고 전체가 하나의 긴 트랜잭션이 된다.
+            throw new IllegalStateException("벌크 " + operation + "은 트랜잭션 밖에서 호출해야 합니다.");
+        }
+        predicate.accept(MemberPathCheck.INSTANCE, null);
+        Tuple range = transactionTemplate.execute(status -> queryFactory
+                .select(member.id.min(), member.id.max(), member.id.count())
+                .from(member)
+                .where(predicate)
+                .fetchOne());
+        Long minId = range == null ? null : range.get(0, Long.class);
+        Long maxId = range == null ? null : range.get(1, Long.class);
+        if (minId == null) {
+            return 0;
+        }
+
+        //시작할 때의 row 수 기준 (진행 중에 조건에 맞는 row가 바뀌면 달라질 수 있다.)
+        long totalChunks = (range.get(2, Long.class) + chunkSize - 1) / chunkSize;
+        long rows = 0;
+        long last = minId - 1;
+        long chunk = 0;
+        long start = System.nanoTime();
+        while (last < maxId) {
+            long from = last;
+            Long[] result = transactionTemplate.execute(status -> {
+                long to = nextBound(predicate, from, maxId);
+                long count = execution.execute(from, to);
+                em.clear();
+                return new Long[]{to, count};
+            });
+            memberCountCache.invalidateAll();
+            last = result[0];
+            rows += result[1];
+            chunk++;
+
+            Progress progress = new Progress(operation, chunk, Math.max(chunk, totalChunks), last, rows);
+            log.debug("Member bulk {}: chunk {}/{} (id <= {}), {} rows", operation, chunk, progress.getTotalChunks(), last, rows);
+            listener.accept(progress);
+        }
+        log.info("Member bulk {}: {} rows in {} chunks, {}ms", operation, rows, chunk, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * id > lastId 인 조건에 맞는 row 중 chunkSize 번째 id (없으면 maxId, maxId보다 크면 maxId)
+     */
+    private long nextBound(Predicate predicate, long lastId, long maxId) {
+        Long bound = queryFactory
+                .select(member.id)
+                .from(member)
+                .where(predicate, member.id.gt(lastId))
+                .orderBy(member.id.asc())
+                .offset(chunkSize - 1)
+                .fetchFirst();
+        return bound == null ? maxId : Math.min(bound, maxId);
+    }
+
+    private interface ChunkExecution {
+        long execute(long afterId, long toId); //afterId < id <= toId
+    }
+
+    /**
+     * 벌크 update/delete의 where절에서 쓸 수 없는 경로 확인
+     * member의 필드와 member.team.id(외래 키 컬럼)만 허용, 서브쿼리 안은 확인하지 않는다.
+     */
+    private static class MemberPathCheck implements Visitor<Void, Void> {
+
+        static final MemberPathCheck INSTANCE = new MemberPathCheck();
+
+        @Override
+        public Void visit(Constant<?> expr, Void context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Void context) {
+            expr.getArgs().forEach(arg -> arg.accept(this, context));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Void context) {
+            expr.getArgs().forEach(arg -> arg.accept(this, context));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Void context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Void context) {
+            Path<?> parent = expr.getMetadata().getParent();
+            boolean memberField = expr.getRoot().equals(member) && (parent == null || parent.equals(member));
+            boolean teamId = expr.equals(member.team.id);
+            if (!memberField && !teamId) {
+                throw new IllegalArgumentException("벌크 update/delete 조건에 join이 필요한 경로는 쓸 수 없습니다: " + expr
+                        + " (member.team.id 또는 서브쿼리를 사용할 것)");
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Void context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Void context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, context);
+                }
+            }
+            return null;
+        }
+    }
+
+    @Getter
+    public static class Progress {
+        private final String operation;
+        private final long chunk; //1부터
+        private final long totalChunks;
+        private final long lastId; //처리한 구간의 마지막 id
+        private final long rows; //지금까지 변경된 row 수
+
+        Progress(String operation, long chunk, long totalChunks, long lastId, long rows) {
+            this.operation = operation;
+            this.chunk = chunk;
+            this.totalChunks = totalChunks;
+            this.lastId = lastId;
+            this.rows = rows;
+        }
+    }
+}
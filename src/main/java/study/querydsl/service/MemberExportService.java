@@ -0,0 +1,112 @@
+package study.querydsl.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysema.commons.lang.CloseableIterator;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 검색 결과 전체를 스트리밍으로 내보내기
+ * 커서로 한 row씩 읽어서 바로 응답에 쓰기 때문에 결과 건수와 상관없이 힙 사용량이 일정하다.
+ * StreamingResponseBody는 MVC 비동기 요청이라 spring.mvc.async.request-timeout 안에 끝나야 한다. (application.yml)
+ */
+@Service
+public class MemberExportService {
+
+    @Getter
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+    }
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+    private final int clearInterval;
+
+    public MemberExportService(MemberJpaRepository memberJpaRepository,
+                               EntityManager em,
+                               ObjectMapper objectMapper,
+                               @Value("${member.export.fetch-size:1000}") int fetchSize,
+                               @Value("${member.export.clear-interval:1000}") int clearInterval) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * @return 내보낸 row 수
+     */
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write("memberId,username,age,teamId,teamName\n");
+        }
+
+        long rows = 0;
+        try (CloseableIterator<MemberTeamDto> iterator = memberJpaRepository.searchIterate(condition, fetchSize)) {
+            while (iterator.hasNext()) {
+                writeRow(writer, format, iterator.next());
+                if (++rows % clearInterval == 0) {
+                    em.clear(); //영속성 컨텍스트가 계속 커지지 않도록 주기적으로 비움
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private void writeRow(Writer writer, Format format, MemberTeamDto dto) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(dto));
+        } else {
+            writer.write(String.valueOf(dto.getMemberId()));
+            writer.write(',');
+            writer.write(csv(dto.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(dto.getAge()));
+            writer.write(',');
+            writer.write(dto.getTeamId() == null ? "" : String.valueOf(dto.getTeamId()));
+            writer.write(',');
+            writer.write(csv(dto.getTeamName()));
+        }
+        writer.write('\n');
+    }
+
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,171 @@
+package study.querydsl.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+
+/**
+ * 비용이 큰 검색 요청을 DB에 보내기 전에 거르기
+ * - 페이징 없는 검색 : 예상 row 수가 max-unpaged-rows 를 넘으면 거부 (username / teamName 조건이 있어야 줄어든다)
+ * - 페이지 크기 : max-page-size 를 넘으면 oversize 설정에 따라 줄이거나(CLAMP) 거부(REJECT)
+ * - 나이 범위 : username / teamName 없이 나이 조건만 있을 때 범위가 max-age-range 보다 넓으면 거부 (한쪽만 열린 범위 포함)
+ * 예상 row 수는 테이블 통계(H2 INFORMATION_SCHEMA.TABLES.ROW_COUNT_ESTIMATE)로 구하고 stats-ttl 동안 캐시한다.
+ * 거부는 IllegalArgumentException (컨트롤러에서 400)
+ * 지표 : member.search.cost-guard{check=unpaged|page_size|age_range,result=rejected|clamped}
+ * 내보내기(/members/export)는 스트리밍으로 전체를 읽는 것이 목적이라 대상이 아니다.
+ */
+@Slf4j
+@Service
+public class MemberQueryCostGuard {
+
+    public enum Oversize {CLAMP, REJECT}
+
+    private static final String ROW_COUNT_ESTIMATE =
+            "select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = CURRENT_SCHEMA and TABLE_NAME = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int maxPageSize;
+    private final Oversize oversize;
+    private final long maxUnpagedRows;
+    private final int maxAgeRange;
+    private final Cache<String, Long> rowCounts;
+
+    public MemberQueryCostGuard(JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${member.search.cost-guard.enabled:true}") boolean enabled,
+                                @Value("${member.search.cost-guard.max-page-size:100}") int maxPageSize,
+                                @Value("${member.search.cost-guard.oversize:CLAMP}") Oversize oversize,
+                                @Value("${member.search.cost-guard.max-unpaged-rows:1000}") long maxUnpagedRows,
+                                @Value("${member.search.cost-guard.max-age-range:50}") int maxAgeRange,
+                                @Value("${member.search.cost-guard.stats-ttl:1m}") Duration statsTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxPageSize = maxPageSize;
+        this.oversize = oversize;
+        this.maxUnpagedRows = maxUnpagedRows;
+        this.maxAgeRange = maxAgeRange;
+        this.rowCounts = Caffeine.newBuilder()
+                .expireAfterWrite(statsTtl)
+                .build();
+    }
+
+    /**
+     * search(condition), searchFields 처럼 전체 결과를 한번에 돌려주는 검색
+     */
+    public void checkUnpaged(MemberSearchCondition condition) {
+        if (!enabled) {
+            return;
+        }
+        checkAgeRange(condition);
+        long estimated = estimateRows(condition);
+        if (estimated > maxUnpagedRows) {
+            throw reject("unpaged", "조건이 없는 검색은 결과가 너무 많습니다 (예상 " + estimated + "건, 최대 " + maxUnpagedRows
+                    + "건). username 또는 teamName 조건을 주거나 페이징 검색을 사용해 주세요.");
+        }
+    }
+
+    /**
+     * @return 그대로 또는 페이지 크기를 max-page-size 로 줄인 Pageable
+     */
+    public Pageable checkPage(MemberSearchCondition condition, Pageable pageable) {
+        if (!enabled) {
+            return pageable;
+        }
+        if (pageable.isUnpaged()) {
+            checkUnpaged(condition);
+            return pageable;
+        }
+        checkAgeRange(condition);
+        if (pageable.getPageSize() <= maxPageSize) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), clampSize(pageable.getPageSize()), pageable.getSort());
+    }
+
+    /**
+     * 키셋 페이징(searchByCursor)의 size
+     */
+    public int checkSize(MemberSearchCondition condition, int size) {
+        if (!enabled) {
+            return size;
+        }
+        checkAgeRange(condition);
+        return size <= maxPageSize ? size : clampSize(size);
+    }
+
+    /**
+     * username : 인덱스 eq 조회라 1건으로 본다. (이름 중복은 적다고 가정)
+     * teamName : 회원이 팀별로 고르게 나뉘어 있다고 보고 회원 수 / 팀 수
+     * 나이 조건은 분포 통계가 없으므로 줄이지 않는다. (범위 폭은 checkAgeRange에서 따로 제한)
+     */
+    long estimateRows(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalize();
+        if (normalized.getUsername() != null) {
+            return 1;
+        }
+        long members = rowCount("MEMBER");
+        if (normalized.getTeamName() != null) {
+            return members / Math.max(1, rowCount("TEAM"));
+        }
+        return members;
+    }
+
+    private void checkAgeRange(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = condition.normalize();
+        Integer ageGoe = normalized.getAgeGoe();
+        Integer ageLoe = normalized.getAgeLoe();
+        if (normalized.getUsername() != null || normalized.getTeamName() != null || (ageGoe == null && ageLoe == null)) {
+            return;
+        }
+        if (ageGoe == null || ageLoe == null || (long) ageLoe - ageGoe > maxAgeRange) {
+            throw reject("age_range", "나이 조건만으로 검색할 때는 범위를 " + maxAgeRange + " 이하로 지정해 주세요: "
+                    + (ageGoe == null ? "" : ageGoe) + "~" + (ageLoe == null ? "" : ageLoe));
+        }
+    }
+
+    private int clampSize(int size) {
+        if (oversize == Oversize.REJECT) {
+            throw reject("page_size", "페이지 크기는 최대 " + maxPageSize + "입니다: " + size);
+        }
+        meterRegistry.counter("member.search.cost-guard", "check", "page_size", "result", "clamped").increment();
+        log.debug("Page size {} clamped to {}", size, maxPageSize);
+        return maxPageSize;
+    }
+
+    private IllegalArgumentException reject(String check, String message) {
+        meterRegistry.counter("member.search.cost-guard", "check", check, "result", "rejected").increment();
+        return new IllegalArgumentException(message);
+    }
+
+    private long rowCount(String table) {
+        return rowCounts.get(table, this::loadRowCount);
+    }
+
+    private Long loadRowCount(String table) {
+        try {
+            Long estimate = jdbcTemplate.queryForObject(ROW_COUNT_ESTIMATE, Long.class, table);
+            if (estimate != null) {
+                return estimate;
+            }
+        } catch (DataAccessException e) {
+            //count(*)는 전체를 읽으므로 통계를 못 쓰고 있다는 것이 보이도록 warn (stats-ttl 마다 한번)
+            log.warn("Row count estimate of {} unavailable, falling back to count(*): {}", table, e.getMessage());
+        }
+        //통계가 없는 DB : 직접 센다. (stats-ttl 동안 캐시되므로 자주 나가지 않는다)
+        Long count = jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,180 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 동시에 들어온 같은 검색 요청 합치기 (single-flight)
+ * 같은 키(검색 종류 + 정규화된 조건 + 페이지 + fields)로 실행 중인 조회가 있으면 새로 조회하지 않고 그 결과를 같이 받는다.
+ * - 먼저 온 요청(leader)이 자기 스레드에서 조회하고, 끝나면 키를 지운다. 이후 요청은 새로 조회한다. (오래된 결과 X)
+ * - 기다리는 요청(follower)은 max-wait 까지만 기다리고, 넘으면 직접 조회한다.
+ * - 한 키에 max-waiters 보다 많이 기다리고 있으면 직접 조회한다. (인기 키 하나가 요청 스레드를 다 잡지 않도록)
+ * - fields 검색(/v1~v3 ?fields=)도 같은 방식으로 합친다. (fields는 EnumSet이라 요청 순서와 상관없이 같은 키)
+ * - 트랜잭션 안에서 호출되면 커밋 전 데이터를 다른 요청과 나누지 않도록 합치지 않는다.
+ *
+ * 지표 : member.search.coalesce{operation,result=leader|follower|timeout|overflow|bypass}
+ *        합쳐진 비율 = follower / (leader + follower)
+ *        member.search.coalesce.waiting (지금 기다리고 있는 요청 수)
+ */
+@Service
+public class MemberSearchCoalescer {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final int maxWaiters;
+    private final Map<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    public MemberSearchCoalescer(MemberJpaRepository memberJpaRepository,
+                                 MemberRepository memberRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${member.search.coalesce.enabled:true}") boolean enabled,
+                                 @Value("${member.search.coalesce.max-wait:2s}") Duration maxWait,
+                                 @Value("${member.search.coalesce.max-waiters:100}") int maxWaiters) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberRepository = memberRepository;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxWait = maxWait;
+        this.maxWaiters = maxWaiters;
+        meterRegistry.gauge("member.search.coalesce.waiting", flights,
+                f -> f.values().stream().mapToInt(flight -> flight.waiters.get()).sum());
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        //같은 List를 여러 요청이 받으므로 수정할 수 없게 감싼다.
+        return coalesce("search", condition, null, () -> Collections.unmodifiableList(memberJpaRepository.search(condition)));
+    }
+
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce("searchPageSimple", condition, pageable, () -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    public Page<MemberTeamDto> searchPageComlex(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce("searchPageComlex", condition, pageable, () -> memberRepository.searchPageComlex(condition, pageable));
+    }
+
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, Set<MemberField> fields) {
+        return coalesce("searchFields", condition, fields, null,
+                () -> Collections.unmodifiableList(memberRepository.searchFields(condition, fields)));
+    }
+
+    public Page<Map<String, Object>> searchPageSimpleFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable) {
+        return coalesce("searchPageSimpleFields", condition, fields, pageable,
+                () -> memberRepository.searchPageSimpleFields(condition, fields, pageable));
+    }
+
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable) {
+        return coalesce("searchPageFields", condition, fields, pageable,
+                () -> memberRepository.searchPageFields(condition, fields, pageable));
+    }
+
+    <T> T coalesce(String operation, MemberSearchCondition condition, Pageable pageable, Supplier<T> query) {
+        return coalesce(operation, condition, null, pageable, query);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T coalesce(String operation, MemberSearchCondition condition, Set<MemberField> fields, Pageable pageable, Supplier<T> query) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            count(operation, "bypass");
+            return query.get();
+        }
+
+        Key key = new Key(operation, condition.normalize(), fields, pageable);
+        Flight flight = new Flight();
+        Flight inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight == null) {
+            count(operation, "leader");
+            return (T) lead(key, flight, query);
+        }
+
+        if (inFlight.waiters.incrementAndGet() > maxWaiters) {
+            inFlight.waiters.decrementAndGet();
+            count(operation, "overflow");
+            return query.get();
+        }
+        try {
+            T result = (T) inFlight.result.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+            count(operation, "follower");
+            return result;
+        } catch (TimeoutException e) {
+            count(operation, "timeout");
+            return query.get();
+        } catch (ExecutionException e) {
+            count(operation, "follower");
+            throw propagate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("검색 결과 대기 중 인터럽트", e);
+        } finally {
+            inFlight.waiters.decrementAndGet();
+        }
+    }
+
+    private Object lead(Key key, Flight flight, Supplier<?> query) {
+        try {
+            Object result = query.get();
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private void count(String operation, String result) {
+        meterRegistry.counter("member.search.coalesce", "operation", operation, "result", result).increment();
+    }
+
+    private static RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final String operation;
+        private final MemberSearchCondition condition;
+        private final Set<MemberField> fields;
+        private final Pageable pageable;
+    }
+
+    private static class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 커밋된 데이터가 필요한 테스트의 fixture (@Transactional 롤백 테스트 대신)
+ * 2차 캐시, 팀 이름 사전, 별도 커넥션/트랜잭션에서 읽는 코드는 커밋된 데이터만 본다.
+ * persist()한 엔티티와 그 팀에 속한 회원, deleteAfterEach()로 등록한 대상은 테스트가 끝나면 지운다.
+ * 사용 : @RegisterExtension CommittedFixture fixture = new CommittedFixture(); 후 fixture.persist(...)
+ */
+public class CommittedFixture implements BeforeEachCallback, AfterEachCallback {
+
+    private final List<Object> persisted = new ArrayList<>();
+    private final List<String> cleanups = new ArrayList<>();
+    private EntityManager em;
+    private PersistenceUnitUtil persistenceUnitUtil;
+    private TransactionTemplate tx;
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        EntityManagerFactory emf = applicationContext.getBean(EntityManagerFactory.class);
+        em = SharedEntityManagerCreator.createSharedEntityManager(emf);
+        persistenceUnitUtil = emf.getPersistenceUnitUtil();
+        tx = new TransactionTemplate(applicationContext.getBean(PlatformTransactionManager.class));
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        try {
+            tx.executeWithoutResult(status -> {
+                cleanups.forEach(jpql -> em.createQuery(jpql).executeUpdate());
+                List<Object> teamIds = new ArrayList<>();
+                for (Object entity : persisted) {
+                    if (entity instanceof Team) {
+                        teamIds.add(persistenceUnitUtil.getIdentifier(entity));
+                    }
+                }
+                if (!teamIds.isEmpty()) {
+                    em.createQuery("delete from Member m where m.team.id in :teamIds")
+                            .setParameter("teamIds", teamIds)
+                            .executeUpdate();
+                }
+                //나중에 persist한 것부터 (회원 -> 팀), 테스트 중에 이미 지워졌으면 건너뛴다.
+                for (int i = persisted.size() - 1; i >= 0; i--) {
+                    Object entity = persisted.get(i);
+                    Object found = em.find(entity.getClass(), persistenceUnitUtil.getIdentifier(entity));
+                    if (found != null) {
+                        em.remove(found);
+                    }
+                }
+            });
+        } finally {
+            persisted.clear();
+            cleanups.clear();
+        }
+    }
+
+    /**
+     * 새 트랜잭션에서 persist하고 커밋, 테스트가 끝나면 지운다. (id는 바로 사용 가능)
+     */
+    public void persist(Object... entities) {
+        tx.executeWithoutResult(status -> Arrays.stream(entities).forEach(em::persist));
+        persisted.addAll(Arrays.asList(entities));
+    }
+
+    /**
+     * persist()로 추적할 수 없는 데이터 (테스트 대상이 만든 row 등)를 지울 bulk delete JPQL, 추적한 엔티티보다 먼저 실행
+     */
+    public void deleteAfterEach(String jpql) {
+        cleanups.add(jpql);
+    }
+
+    /**
+     * 새 트랜잭션에서 실행하고 커밋
+     */
+    public <T> T execute(Function<EntityManager, T> work) {
+        return tx.execute(status -> work.apply(em));
+    }
+
+    public void executeWithoutResult(Consumer<EntityManager> work) {
+        tx.executeWithoutResult(status -> work.accept(em));
+    }
+}
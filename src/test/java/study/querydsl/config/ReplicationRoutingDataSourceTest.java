@@ -0,0 +1,87 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * H2 두 개를 primary / replica 로 두고 라우팅 확인
+ */
+class ReplicationRoutingDataSourceTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    DataSource primary = h2("routing_primary");
+    DataSource replica = h2("routing_replica");
+
+    ReplicationRoutingDataSource routingDataSource;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate writeTx;
+    TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    public void before(){
+        new JdbcTemplate(primary).execute("create table if not exists node(name varchar(20))");
+        new JdbcTemplate(primary).execute("delete from node");
+        new JdbcTemplate(primary).update("insert into node values ('primary')");
+        new JdbcTemplate(replica).execute("create table if not exists node(name varchar(20))");
+        new JdbcTemplate(replica).execute("create table if not exists replica_lag(seconds int)");
+        new JdbcTemplate(replica).execute("delete from node");
+        new JdbcTemplate(replica).execute("delete from replica_lag");
+        new JdbcTemplate(replica).update("insert into node values ('replica')");
+        new JdbcTemplate(replica).update("insert into replica_lag values (0)");
+
+        routingDataSource = new ReplicationRoutingDataSource(primary, Map.of("replica-0", replica),
+                Duration.ofSeconds(5), "select seconds from replica_lag", meterRegistry);
+        jdbcTemplate = new JdbcTemplate(routingDataSource);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routingDataSource);
+        writeTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void after(){
+        routingDataSource.close();
+    }
+
+    @Test
+    public void routeByReadOnly(){
+        assertThat(nodeIn(writeTx)).isEqualTo("primary");
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("replica");
+        assertThat(meterRegistry.get("datasource.routing").tag("target", "replica-0").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void fallbackToPrimaryWhenReplicaLags(){
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 60");
+        routingDataSource.refreshHealth();
+
+        assertThat(routingDataSource.getHealthyReplicas()).isEmpty();
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("primary");
+
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 1");
+        routingDataSource.refreshHealth();
+
+        assertThat(nodeIn(readOnlyTx)).isEqualTo("replica");
+    }
+
+    private String nodeIn(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("select name from node", String.class));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
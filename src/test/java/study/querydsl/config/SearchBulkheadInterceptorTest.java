@@ -0,0 +1,107 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchBulkheadInterceptorTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void rejectWhenQueueFull() throws Exception {
+        SearchBulkheadInterceptor interceptor = interceptor(1, 0, Duration.ofSeconds(1));
+        MockHttpServletRequest first = request("/v2/members");
+        MockHttpServletRequest second = request("/v2/members");
+        MockHttpServletResponse secondResponse = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), null)).isTrue();
+        //대기열 0 -> 기다리지 않고 바로 429
+        assertThat(interceptor.preHandle(second, secondResponse, null)).isFalse();
+        assertThat(secondResponse.getStatus()).isEqualTo(429);
+        assertThat(secondResponse.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(meterRegistry.get("member.search.bulkhead.rejected").tag("reason", "queue_full").counter().count()).isEqualTo(1);
+
+        //다른 엔드포인트는 영향 없음
+        assertThat(interceptor.preHandle(request("/v3/members"), new MockHttpServletResponse(), null)).isTrue();
+
+        //자리가 나면 다시 받는다.
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertThat(interceptor.preHandle(request("/v2/members"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    @Test
+    public void rejectWhenWaitTimedOut() throws Exception {
+        SearchBulkheadInterceptor interceptor = interceptor(1, 1, Duration.ofMillis(50));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(request("/v1/members"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(request("/v1/members"), response, null)).isFalse();
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isNotNull();
+        assertThat(meterRegistry.get("member.search.bulkhead.rejected").tag("reason", "timeout").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("member.search.bulkhead.wait").timer().max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+        assertThat(meterRegistry.get("member.search.bulkhead.active").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("member.search.bulkhead.waiting").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void asyncDispatchKeepsPermit() throws Exception {
+        SearchBulkheadInterceptor interceptor = interceptor(1, 0, Duration.ofSeconds(1));
+        MockHttpServletRequest export = request("/members/export");
+
+        assertThat(interceptor.preHandle(export, new MockHttpServletResponse(), null)).isTrue();
+        //StreamingResponseBody 재디스패치 : 이미 잡은 자리를 사용
+        assertThat(interceptor.preHandle(export, new MockHttpServletResponse(), null)).isTrue();
+        interceptor.afterCompletion(export, new MockHttpServletResponse(), null, null);
+
+        assertThat(meterRegistry.get("member.search.bulkhead.active").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    public void limitTotalConnections() throws Exception {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setMaxConnections(3);
+        properties.setMaxWait(Duration.ofMillis(50));
+        BulkheadProperties.Limit v3 = new BulkheadProperties.Limit();
+        v3.setConnections(2);
+        properties.getEndpoints().put("/v3/members", v3);
+        SearchBulkheadInterceptor interceptor = new SearchBulkheadInterceptor(properties, meterRegistry);
+        MockHttpServletRequest v3Request = request("/v3/members");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(interceptor.preHandle(v3Request, new MockHttpServletResponse(), null)).isTrue();
+        assertThat(interceptor.preHandle(request("/v2/members"), new MockHttpServletResponse(), null)).isTrue();
+        //엔드포인트 자리는 남아 있어도 전체 커넥션 자리(3)가 다 찼다.
+        assertThat(interceptor.preHandle(request("/v1/members"), response, null)).isFalse();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(meterRegistry.get("member.search.bulkhead.connections").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("member.search.bulkhead.active").tag("endpoint", "/v1/members").gauge().value()).isEqualTo(0);
+
+        interceptor.afterCompletion(v3Request, new MockHttpServletResponse(), null, null);
+        assertThat(interceptor.preHandle(request("/v1/members"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    private SearchBulkheadInterceptor interceptor(int maxConcurrent, int queueCapacity, Duration maxWait) {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setMaxConcurrent(maxConcurrent);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setMaxWait(maxWait);
+        properties.setRetryAfter(Duration.ofMillis(1500));
+        return new SearchBulkheadInterceptor(properties, meterRegistry);
+    }
+
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//플래그를 끄면 jcache가 classpath에 있어도 2차 캐시를 사용하지 않는다.
+@SpringBootTest(properties = {
+        "member.team-cache.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class SecondLevelCacheDisabledTest {
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+    Long teamId;
+
+    @BeforeEach
+    public void before(){
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Team team = new Team("teamNoL2");
+        fixture.persist(team);
+        teamId = team.getId();
+        statistics.clear();
+    }
+
+    @Test
+    public void noCache(){
+        fixture.executeWithoutResult(em -> em.find(Team.class, teamId));
+        fixture.executeWithoutResult(em -> em.find(Team.class, teamId));
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isZero();
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+        assertThat(emf.getCache().contains(Team.class, teamId)).isFalse();
+    }
+}
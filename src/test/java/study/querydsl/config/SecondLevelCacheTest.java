@@ -0,0 +1,77 @@
+package study.querydsl.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.config.SqlStatementExtension.assertStatements;
+import static study.querydsl.config.SqlStatementExtension.resetStatements;
+
+//2차 캐시는 커밋된 데이터만 담는다.
+@SpringBootTest(properties = "member.team-cache.enabled=true")
+@ExtendWith(SqlStatementExtension.class)
+class SecondLevelCacheTest {
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    Statistics statistics;
+    Long teamId;
+    Long memberId;
+
+    @BeforeEach
+    public void before(){
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Team team = new Team("teamL2");
+        Member member = new Member("memberL2", 10, team);
+        fixture.persist(team, member);
+        teamId = team.getId();
+        memberId = member.getId();
+        statistics.clear();
+    }
+
+    @Test
+    public void findFromCache(){
+        fixture.executeWithoutResult(em -> em.find(Team.class, teamId));
+        fixture.executeWithoutResult(em -> em.find(Team.class, teamId));
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void lazyTeamWithoutQuery(){
+        fixture.executeWithoutResult(em -> em.find(Team.class, teamId)); //캐시에 올려둔다.
+
+        fixture.executeWithoutResult(em -> {
+            Member member = em.find(Member.class, memberId);
+            resetStatements();
+            assertThat(member.getTeam().getName()).isEqualTo("teamL2"); //지연 로딩
+            assertStatements(0);
+        });
+    }
+
+    @Test
+    public void updateAfterCommit(){
+        fixture.executeWithoutResult(em -> em.find(Team.class, teamId));
+        fixture.executeWithoutResult(em -> em.createQuery("update Team t set t.name = 'teamL2-renamed' where t.id = :id")
+                .setParameter("id", teamId)
+                .executeUpdate()); //bulk update -> region 무효화
+
+        String name = fixture.execute(em -> em.find(Team.class, teamId).getName());
+
+        assertThat(name).isEqualTo("teamL2-renamed");
+    }
+}
@@ -0,0 +1,52 @@
+package study.querydsl.config;
+
+import com.p6spy.engine.common.StatementInformation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SlowQueryRecorderTest {
+
+    SlowQueryRecorder slowQueryRecorder = new SlowQueryRecorder(Duration.ofMillis(100), 2, 0, 10);
+
+    @AfterEach
+    public void after(){
+        slowQueryRecorder.shutdown();
+    }
+
+    @Test
+    public void recordOnlySlowStatements(){
+        slowQueryRecorder.onAfterAnyExecute(statement("select 1"), TimeUnit.MILLISECONDS.toNanos(99), null);
+        slowQueryRecorder.onAfterAnyExecute(statement("select 2"), TimeUnit.MILLISECONDS.toNanos(150), new SQLException("timeout"));
+
+        assertThat(slowQueryRecorder.snapshot()).extracting("sql").containsExactly("select 2");
+        assertThat(slowQueryRecorder.snapshot().get(0).getElapsedMillis()).isEqualTo(150L);
+        assertThat(slowQueryRecorder.snapshot().get(0).getError()).isEqualTo("timeout");
+    }
+
+    @Test
+    public void keepLatestInRingBuffer(){
+        for (int i = 1; i <= 3; i++) {
+            slowQueryRecorder.onAfterAnyExecute(statement("select " + i), TimeUnit.SECONDS.toNanos(1), null);
+        }
+
+        //capacity 2 -> 가장 오래된 것이 덮어써지고 최근 것부터 나온다.
+        assertThat(slowQueryRecorder.snapshot()).extracting("sql").containsExactly("select 3", "select 2");
+
+        slowQueryRecorder.clear();
+        assertThat(slowQueryRecorder.snapshot()).isEmpty();
+    }
+
+    private static StatementInformation statement(String sql) {
+        StatementInformation statementInformation = mock(StatementInformation.class);
+        when(statementInformation.getSqlWithValues()).thenReturn(sql);
+        return statementInformation;
+    }
+}
@@ -0,0 +1,51 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트마다 SQL 수를 센다.
+ * 사용 : @ExtendWith(SqlStatementExtension.class) 후 resetStatements() -> 검증할 코드 -> assertStatements(max)
+ */
+public class SqlStatementExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        context.getStore(NAMESPACE).put("scope", StatementCounter.open());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        StatementCounter.Scope scope = context.getStore(NAMESPACE).remove("scope", StatementCounter.Scope.class);
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    public static void resetStatements() {
+        currentScope().reset();
+    }
+
+    public static int statementCount() {
+        return currentScope().getCount();
+    }
+
+    public static void assertStatements(int max) {
+        assertThat(statementCount())
+                .as("SQL statement 수 (N+1 의심)")
+                .isLessThanOrEqualTo(max);
+    }
+
+    private static StatementCounter.Scope currentScope() {
+        StatementCounter.Scope scope = StatementCounter.current();
+        if (scope == null) {
+            throw new IllegalStateException("@ExtendWith(SqlStatementExtension.class)가 필요합니다.");
+        }
+        return scope;
+    }
+}
@@ -0,0 +1,79 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.config.SqlStatementExtension.assertStatements;
+import static study.querydsl.config.SqlStatementExtension.resetStatements;
+import static study.querydsl.config.SqlStatementExtension.statementCount;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@ExtendWith(SqlStatementExtension.class)
+class StatementBudgetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    public void before(){
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("teamBudget" + i);
+            em.persist(team);
+            em.persist(new Member("budget" + i, 10 + i, team));
+        }
+        em.flush();
+        em.clear();
+        resetStatements();
+    }
+
+    @Test
+    public void searchEndpoints() throws Exception {
+        //MemberQueryCostGuard의 테이블 통계 조회는 캐시되므로 한번 먼저 호출해서 제외
+        mockMvc.perform(get("/v1/members").param("teamName", "teamBudget1"));
+        resetStatements();
+        mockMvc.perform(get("/v1/members").param("teamName", "teamBudget1"))
+                .andExpect(status().isOk());
+        assertThat(statementCount()).isEqualTo(1);
+
+        //3건 중 2건 페이지 -> 첫 페이지가 다 차므로 count 쿼리도 나간다.
+        resetStatements();
+        mockMvc.perform(get("/v3/members").param("ageGoe", "10").param("ageLoe", "12").param("size", "2"))
+                .andExpect(status().isOk());
+        assertThat(statementCount()).isEqualTo(2); //content + count
+
+        resetStatements();
+        mockMvc.perform(get("/v4/members").param("username", "budget1"))
+                .andExpect(status().isOk());
+        assertThat(statementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void detectNPlusOne(){
+        List<Member> members = em.createQuery("select m from Member m where m.username like 'budget%'", Member.class)
+                .getResultList();
+        members.forEach(m -> m.getTeam().getName()); //LAZY team 초기화
+
+        assertThat(statementCount()).isEqualTo(1 + members.size());
+        assertThatThrownBy(() -> assertStatements(1)).isInstanceOf(AssertionError.class);
+    }
+}
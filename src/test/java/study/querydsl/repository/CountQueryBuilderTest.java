@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class CountQueryBuilderTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        queryFactory = new JPAQueryFactory(em);
+
+        Team teamA = new Team("teamCountA");
+        Team teamB = new Team("teamCountB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("count1", 10, teamA));
+        em.persist(new Member("count2", 20, teamA));
+        em.persist(new Member("count3", 30, teamB));
+        em.persist(new Member("count4", 40, null));
+    }
+
+    @Test
+    public void dropUnreferencedJoin(){
+        JPAQuery<Long> query = CountQueryBuilder.countOf(queryFactory, member, member.id)
+                .leftJoin(member.team, team)
+                .where(member.username.startsWith("count"), null)
+                .build();
+
+        assertThat(query.toString()).doesNotContain("join");
+        assertThat(query.fetchOne()).isEqualTo(4L);
+    }
+
+    @Test
+    public void keepReferencedJoin(){
+        JPAQuery<Long> query = CountQueryBuilder.countOf(queryFactory, member, member.id)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamCountA"))
+                .build();
+
+        assertThat(query.toString()).contains("left join member1.team as team");
+        assertThat(query.fetchOne()).isEqualTo(2L);
+    }
+}
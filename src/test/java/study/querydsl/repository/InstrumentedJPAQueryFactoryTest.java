@@ -0,0 +1,84 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class InstrumentedJPAQueryFactoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    QueryMetrics queryMetrics;
+    InstrumentedJPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        queryMetrics = new QueryMetrics(meterRegistry, true, 2);
+        queryFactory = new InstrumentedJPAQueryFactory(em, queryMetrics);
+
+        Team team = new Team("teamMetrics");
+        em.persist(team);
+        em.persist(new Member("metrics1", 10, team));
+        em.persist(new Member("metrics2", 20, team));
+        em.persist(new Member("metrics3", 30, team));
+    }
+
+    @Test
+    public void sameShapeForDifferentParameters(){
+        queryFactory.selectFrom(member).where(member.username.startsWith("metrics"), member.age.goe(10)).fetch();
+        queryFactory.selectFrom(member).where(member.username.startsWith("metrics"), member.age.goe(30)).limit(1).fetch();
+
+        Timer timer = meterRegistry.get("querydsl.query").tag("operation", "fetch").tag("entity", "Member").timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(meterRegistry.get("querydsl.query.rows").tag("operation", "fetch").summary().totalAmount()).isEqualTo(4);
+        assertThat(queryMetrics.shapes()).hasSize(1);
+        assertThat(queryMetrics.shapes().values().iterator().next()).contains("member1.age >= ?2");
+    }
+
+    @Test
+    public void countAndResultsAndExecute(){
+        long count = queryFactory.selectFrom(member).where(member.username.startsWith("metrics")).fetchCount();
+        long updated = queryFactory.update(member).set(member.age, 99).where(member.username.startsWith("metrics")).execute();
+
+        assertThat(count).isEqualTo(3);
+        assertThat(updated).isEqualTo(3);
+        assertThat(meterRegistry.get("querydsl.query").tag("operation", "fetchCount").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("querydsl.query.rows").tag("operation", "update").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    public void limitShapes(){
+        queryFactory.selectFrom(member).where(member.age.eq(1)).fetch();
+        queryFactory.selectFrom(member).where(member.age.eq(2), member.username.eq("x")).fetch();
+        queryFactory.selectFrom(member).where(member.username.isNull()).fetch();
+
+        //max-shapes(2)를 넘는 모양은 other로 묶인다.
+        assertThat(queryMetrics.shapes()).hasSize(2);
+        assertThat(meterRegistry.get("querydsl.query").tag("shape", QueryMetrics.OTHER).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void recordError(){
+        try {
+            queryFactory.selectFrom(member).where(member.username.startsWith("metrics")).fetchOne();
+        } catch (RuntimeException e) {
+            //NonUniqueResultException
+        }
+        assertThat(meterRegistry.get("querydsl.query").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.repository;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.config.CommittedFixture;
+import study.querydsl.dto.MemberSeed;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "member.bulk-load.chunk-size=500")
+class MemberBulkLoaderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    MemberBulkLoader memberBulkLoader;
+
+    @SpyBean
+    MemberCountCache memberCountCache;
+
+    Long existingId;
+
+    @BeforeEach
+    public void before(){
+        Team existing = new Team("teamBulkA");
+        fixture.persist(existing);
+        existingId = existing.getId();
+        //로더가 만든 회원/팀
+        fixture.deleteAfterEach("delete from Member m where m.username like 'bulkLoad%'");
+        fixture.deleteAfterEach("delete from Team t where t.name = 'teamBulkB'");
+        clearInvocations(memberCountCache);
+    }
+
+    @Test
+    public void load(){
+        Stream<MemberSeed> seeds = IntStream.range(0, 2500)
+                .mapToObj(i -> new MemberSeed("bulkLoad" + i, i % 100, i % 2 == 0 ? "teamBulkA" : "teamBulkB"));
+
+        long loaded = memberBulkLoader.load(seeds);
+
+        assertThat(loaded).isEqualTo(2500);
+        Long countA = fixture.execute(em -> em.createQuery("select count(m) from Member m where m.team.id = :teamId", Long.class)
+                .setParameter("teamId", existingId)
+                .getSingleResult());
+        Long teamBCount = fixture.execute(em -> em.createQuery("select count(t) from Team t where t.name = 'teamBulkB'", Long.class)
+                .getSingleResult());
+        assertThat(countA).isEqualTo(1250);
+        assertThat(teamBCount).isEqualTo(1);
+    }
+
+    @Test
+    public void memoryBoundedByChunk(){
+        AtomicInteger maxManaged = new AtomicInteger();
+        Stream<MemberSeed> seeds = IntStream.range(0, 20_000)
+                .mapToObj(i -> new MemberSeed("bulkLoad" + i, i % 100, "teamBulkA"))
+                .peek(seed -> {
+                    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                        int managed = em.unwrap(SessionImplementor.class).getPersistenceContext().getNumberOfManagedEntities();
+                        maxManaged.accumulateAndGet(managed, Math::max);
+                    }
+                });
+
+        long loaded = memberBulkLoader.load(seeds);
+
+        assertThat(loaded).isEqualTo(20_000);
+        //영속성 컨텍스트는 chunk(500) + 팀 프록시를 넘지 않는다.
+        assertThat(maxManaged.get()).isBetween(1, 501);
+        //회원마다 커밋 후 처리가 등록되면 커밋 때마다 count 캐시를 비운다. -> 적재가 끝날 때 한번만
+        verify(memberCountCache, times(1)).invalidateAll();
+    }
+
+    @Test
+    public void rejectInTransaction(){
+        assertThatThrownBy(() -> fixture.executeWithoutResult(em ->
+                memberBulkLoader.load(Stream.of(new MemberSeed("bulkLoad0", 10, "teamBulkA")))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberCountCacheTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    MemberCountCache memberCountCache = new MemberCountCache(Duration.ofMinutes(1), 100, meterRegistry);
+
+    @Test
+    public void cacheByNormalizedCondition(){
+        AtomicInteger queryCount = new AtomicInteger();
+
+        MemberSearchCondition condition1 = new MemberSearchCondition();
+        condition1.setTeamName("teamA");
+        condition1.setUsername("");
+
+        MemberSearchCondition condition2 = new MemberSearchCondition();
+        condition2.setTeamName("teamA");
+
+        long count1 = memberCountCache.get(condition1, () -> queryCount.incrementAndGet() * 10L);
+        long count2 = memberCountCache.get(condition2, () -> queryCount.incrementAndGet() * 10L);
+
+        //빈 문자열 username은 null과 같은 조건 -> 한번만 조회
+        assertThat(count1).isEqualTo(10L);
+        assertThat(count2).isEqualTo(10L);
+        assertThat(queryCount.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidateAll(){
+        AtomicInteger queryCount = new AtomicInteger();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        memberCountCache.get(condition, () -> queryCount.incrementAndGet());
+        memberCountCache.invalidateAll();
+        long count = memberCountCache.get(condition, () -> queryCount.incrementAndGet());
+
+        assertThat(count).isEqualTo(2L);
+    }
+}
@@ -1,10 +1,17 @@
 package study.querydsl.repository;
 
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.CommittedFixture;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
@@ -27,6 +34,12 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
     @Test
     public void basicTest(){
         Member member = new Member("member1", 10);
@@ -56,6 +69,44 @@ class MemberJpaRepositoryTest {
         assertThat(result2).containsExactly(member);
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) //커밋된 데이터로 확인
+    public void readOnlyEntityTest(){
+        Member member = new Member("readOnly1", 10);
+        fixture.persist(member);
+
+        TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+        readOnlyTx.executeWithoutResult(status -> {
+            Member findMember = memberJpaRepository.findByUsername_Querydsl("readOnly1").get(0);
+            assertThat(em.unwrap(Session.class).isReadOnly(findMember)).isTrue();
+
+            //스냅샷이 없어서 변경하고 flush 해도 update가 나가지 않는다.
+            ReflectionTestUtils.setField(findMember, "age", 99);
+            em.flush();
+        });
+
+        int age = fixture.execute(em -> em.find(Member.class, member.getId()).getAge());
+        assertThat(age).isEqualTo(10);
+    }
+
+    @Test
+    public void writeTransactionEntityTest(){
+        memberJpaRepository.save(new Member("readOnly2", 10));
+        em.flush();
+        em.clear();
+
+        //쓰기 트랜잭션에 참여한 조회는 읽기 전용이 아니다. (호출한 쪽의 변경이 update로 반영)
+        Member findMember = memberJpaRepository.findByUsername_Querydsl("readOnly2").get(0);
+        assertThat(em.unwrap(Session.class).isReadOnly(findMember)).isFalse();
+
+        ReflectionTestUtils.setField(findMember, "age", 99);
+        em.flush();
+        em.clear();
+
+        assertThat(memberJpaRepository.findById(findMember.getId()).get().getAge()).isEqualTo(99);
+    }
+
     @Test
     public void searchTest(){
         Team teamA = new Team("teamA");
@@ -0,0 +1,86 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.config.CommittedFixture;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 실제 repository 빈을 거쳐서 호출해도 컨텐츠/count 쿼리가 병렬로 실행되는지 확인
+ */
+@SpringBootTest(properties = "member.search.parallel-count.enabled=true")
+class MemberRepositoryParallelPageTest {
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void before(){
+        Team team = new Team("teamParallel");
+        fixture.persist(team, new Member("parallel0", 10, team), new Member("parallel1", 11, team), new Member("parallel2", 12, team));
+    }
+
+    @Test
+    public void parallelOutsideTransaction(){
+        long parallelBefore = parallelCount();
+        double fallbackBefore = transactionFallbacks();
+
+        //첫 페이지가 다 차야 count 쿼리가 실행된다.
+        Page<MemberTeamDto> page = memberRepository.searchPageComlex(condition(), PageRequest.of(0, 2));
+        Page<Map<String, Object>> fieldsPage = memberRepository.searchPageFields(condition(), MemberField.parse("username"), PageRequest.of(0, 2));
+
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(fieldsPage.getTotalElements()).isEqualTo(3);
+        assertThat(parallelCount() - parallelBefore).isEqualTo(2);
+        assertThat(transactionFallbacks()).isEqualTo(fallbackBefore);
+    }
+
+    @Test
+    public void sequentialInCallerTransaction(){
+        long parallelBefore = parallelCount();
+        double fallbackBefore = transactionFallbacks();
+
+        Page<MemberTeamDto> page = fixture.execute(em -> memberRepository.searchPageComlex(condition(), PageRequest.of(0, 2)));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(parallelCount()).isEqualTo(parallelBefore);
+        assertThat(transactionFallbacks()).isEqualTo(fallbackBefore + 1);
+    }
+
+    private MemberSearchCondition condition() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamParallel");
+        return condition;
+    }
+
+    private long parallelCount() {
+        return meterRegistry.get("member.page.parallel").timer().count();
+    }
+
+    private double transactionFallbacks() {
+        Counter counter = meterRegistry.find("member.page.parallel.fallback").tag("reason", "transaction").counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
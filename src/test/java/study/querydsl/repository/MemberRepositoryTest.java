@@ -5,8 +5,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberField;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSlice;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
@@ -14,7 +18,9 @@ import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -101,6 +107,103 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("member1","member2","member3");
     }
 
+    @Test
+    public void searchFieldsTest(){
+        Team teamF = new Team("teamFields");
+        em.persist(teamF);
+        em.persist(new Member("fields1",10, teamF));
+        em.persist(new Member("fields2",20, teamF));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("fields2");
+
+        List<Map<String, Object>> result = memberRepository.searchFields(condition, MemberField.parse("age,username"));
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0)).containsOnlyKeys("username", "age"); //요청하지 않은 필드는 null로도 내려가지 않는다.
+        assertThat(result.get(0)).containsEntry("username", "fields2").containsEntry("age", 20);
+
+        condition.setUsername(null);
+        condition.setTeamName("teamFields");
+        Page<Map<String, Object>> page = memberRepository.searchPageFields(condition, MemberField.parse("teamId,teamName"), PageRequest.of(0, 1));
+        assertThat(page.getTotalElements()).isEqualTo(2L);
+        assertThat(page.getContent().get(0)).containsEntry("teamId", teamF.getId()).containsEntry("teamName", "teamFields");
+
+        Page<Map<String, Object>> simplePage = memberRepository.searchPageSimpleFields(condition, MemberField.parse("username"), PageRequest.of(0, 1));
+        assertThat(simplePage.getTotalElements()).isEqualTo(2L);
+        assertThat(simplePage.getContent().get(0)).containsOnlyKeys("username");
+    }
+
+    @Test
+    public void unknownFieldTest(){
+        assertThrows(IllegalArgumentException.class, () -> MemberField.parse("username,password"));
+    }
+
+    @Test
+    public void searchPageSortTest(){
+        Team teamS = new Team("teamSort");
+        em.persist(teamS);
+        em.persist(new Member("sort1", 20, teamS));
+        em.persist(new Member("sort2", 10, teamS));
+        em.persist(new Member("sort3", 20, teamS));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamSort");
+
+        Page<MemberTeamDto> result = memberRepository.searchPageComlex(condition, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "age")));
+        //같은 age는 id 역순
+        assertThat(result.getContent()).extracting("username").containsExactly("sort3", "sort1", "sort2");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 10, Sort.by("teamName"))));
+    }
+
+    @Test
+    public void findAllByIdsTest(){
+        Member member1 = new Member("ids1", 10);
+        Member member2 = new Member("ids2", 20);
+        Member member3 = new Member("ids3", 30);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+        em.clear();
+
+        List<Member> result = memberRepository.findAllByIds(
+                Arrays.asList(member3.getId(), -1L, member1.getId(), member3.getId(), null, member2.getId()));
+
+        //입력 순서대로, 없는 id와 중복은 빠진다.
+        assertThat(result).extracting("username").containsExactly("ids3", "ids1", "ids2");
+    }
+
+    @Test
+    public void paddedTest(){
+        assertThat(MemberRepositoryImpl.padded(Arrays.asList(1L))).containsExactly(1L);
+        assertThat(MemberRepositoryImpl.padded(Arrays.asList(1L, 2L, 3L))).containsExactly(1L, 2L, 3L, 3L);
+        assertThat(MemberRepositoryImpl.padded(Arrays.asList(1L, 2L, 3L, 4L, 5L))).hasSize(8);
+    }
+
+    @Test
+    public void searchByCursorTest(){
+        Team teamK = new Team("teamKeyset");
+        em.persist(teamK);
+        em.persist(new Member("keyset1",30, teamK));
+        em.persist(new Member("keyset2",10, teamK));
+        em.persist(new Member("keyset3",20, teamK));
+        em.persist(new Member("keyset4",10, teamK));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamKeyset");
+
+        MemberSlice first = memberRepository.searchByCursor(condition, MemberCursor.first(MemberCursor.SortKey.AGE), 3);
+        assertThat(first.getContent()).extracting("username").containsExactly("keyset2","keyset4","keyset3");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberSlice second = memberRepository.searchByCursor(condition, MemberCursor.decode(first.getNextCursor()), 3);
+        assertThat(second.getContent()).extracting("username").containsExactly("keyset1");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
     @Test
     public void querydslPredicateExecutorTest(){
         Team teamA = new Team("teamA");
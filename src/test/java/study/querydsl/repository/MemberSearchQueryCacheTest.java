@@ -0,0 +1,84 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueryCache memberSearchQueryCache;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamShapeA");
+        Team teamB = new Team("teamShapeB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("shape1", 10, teamA));
+        em.persist(new Member("shape2", 20, teamA));
+        em.persist(new Member("shape3", 30, teamB));
+        em.persist(new Member("shape4", 40, teamB));
+    }
+
+    @Test
+    public void sameResultForAllShapes(){
+        //조건 존재 여부 16가지 모두 Querydsl로 만든 쿼리와 결과가 같아야 한다.
+        for (int mask = 0; mask < 16; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((mask & 1) != 0 ? "shape2" : "");
+            condition.setTeamName((mask & 2) != 0 ? "teamShapeA" : null);
+            condition.setAgeGoe((mask & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((mask & 8) != 0 ? 20 : null);
+
+            List<MemberTeamDto> cached = memberSearchQueryCache.search(condition);
+            List<MemberTeamDto> rendered = memberJpaRepository.searchRendered(condition);
+
+            assertThat(cached).as("mask %d", mask).containsExactlyInAnyOrderElementsOf(rendered);
+        }
+    }
+
+    @Test
+    public void bindSameValueTwice(){
+        //ageGoe == ageLoe 처럼 같은 값이 두 번 나와도 각각의 자리에 바인딩된다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamShapeB");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(30);
+
+        List<MemberTeamDto> result = memberSearchQueryCache.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("shape3");
+        assertThat(memberSearchQueryCache.jpqlOf(condition)).contains("?1", "?2", "?3");
+    }
+
+    @Test
+    public void reuseShape(){
+        MemberSearchCondition condition1 = new MemberSearchCondition();
+        condition1.setUsername("shape1");
+        MemberSearchCondition condition2 = new MemberSearchCondition();
+        condition2.setUsername("shape4");
+
+        assertThat(memberSearchQueryCache.jpqlOf(condition1)).isSameAs(memberSearchQueryCache.jpqlOf(condition2));
+        assertThat(memberSearchQueryCache.search(condition2)).extracting("age").containsExactly(40);
+    }
+}
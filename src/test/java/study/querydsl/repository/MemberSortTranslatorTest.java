@@ -0,0 +1,41 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+class MemberSortTranslatorTest {
+
+    MemberSortTranslator reject = new MemberSortTranslator(MemberSortTranslator.UnindexedSort.REJECT);
+    MemberSortTranslator downgrade = new MemberSortTranslator(MemberSortTranslator.UnindexedSort.DOWNGRADE);
+
+    @Test
+    public void indexedSortWithIdTieBreaker(){
+        assertThat(reject.toOrderSpecifiers(Sort.by(Sort.Direction.DESC, "age")))
+                .containsExactly(member.age.desc(), member.id.desc());
+        assertThat(reject.toOrderSpecifiers(Sort.by("username", "memberId")))
+                .containsExactly(member.username.asc(), member.id.asc());
+        assertThat(reject.toOrderSpecifiers(Sort.by("memberId"))).containsExactly(member.id.asc());
+        assertThat(reject.toOrderSpecifiers(Sort.unsorted())).isEmpty();
+    }
+
+    @Test
+    public void rejectUnindexedSort(){
+        assertThatThrownBy(() -> reject.toOrderSpecifiers(Sort.by("teamName")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reject.toOrderSpecifiers(Sort.by("age", "username")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> reject.toOrderSpecifiers(Sort.by(Sort.Order.asc("username").ignoreCase())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void downgradeUnindexedSort(){
+        assertThat(downgrade.toOrderSpecifiers(Sort.by(Sort.Order.desc("teamName"), Sort.Order.asc("age"))))
+                .containsExactly(member.age.asc(), member.id.asc());
+        assertThat(downgrade.toOrderSpecifiers(Sort.by("teamName"))).isEmpty();
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.RelationalPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import javax.persistence.EntityManager;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSqlSearchTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSqlSearch memberSqlSearch;
+
+    @Autowired
+    MemberSearchQueryCache memberSearchQueryCache;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamSqlA");
+        Team teamB = new Team("teamSqlB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("sql1", 10, teamA));
+        em.persist(new Member("sql2", 20, teamA));
+        em.persist(new Member("sql3", 30, teamB));
+        em.persist(new Member("sql4", 40, null));
+        //flush 하지 않는다. (MemberSqlSearch가 조회 전에 flush)
+    }
+
+    @Test
+    public void sameResultAsJpa(){
+        //조건 존재 여부 16가지 모두 JPQL 구현과 결과가 같아야 한다.
+        for (int mask = 0; mask < 16; mask++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setUsername((mask & 1) != 0 ? "sql2" : "");
+            condition.setTeamName((mask & 2) != 0 ? "teamSqlA" : null);
+            condition.setAgeGoe((mask & 4) != 0 ? 20 : null);
+            condition.setAgeLoe((mask & 8) != 0 ? 20 : null);
+
+            List<MemberTeamDto> sql = memberSqlSearch.search(condition);
+            List<MemberTeamDto> jpa = memberSearchQueryCache.search(condition);
+
+            assertThat(sql).as("mask %d", mask).containsExactlyInAnyOrderElementsOf(jpa);
+        }
+    }
+
+    @Test
+    public void seePendingInserts(){
+        //before()에서 persist만 하고 flush하지 않은 회원들이 JDBC 조회에도 보여야 한다.
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        List<MemberTeamDto> result = memberSqlSearch.search(condition);
+
+        assertThat(result).extracting("username").contains("sql2", "sql3", "sql4");
+    }
+
+    @Test
+    public void memberWithoutTeam(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("sql4");
+
+        List<MemberTeamDto> result = memberSqlSearch.search(condition);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getTeamId()).isNull();
+        assertThat(result.get(0).getTeamName()).isNull();
+    }
+
+    @Test
+    public void metadataMatchesSchema(){
+        //SMember, STeam은 직접 관리하므로 JPA 매핑으로 만든 테이블과 어긋나지 않았는지 확인
+        assertMatchesTable(SMember.member);
+        assertMatchesTable(STeam.team);
+    }
+
+    private void assertMatchesTable(RelationalPath<?> path) {
+        Map<String, ColumnMetadata> expected = new HashMap<>();
+        for (Path<?> column : path.getColumns()) {
+            ColumnMetadata metadata = path.getMetadata(column);
+            expected.put(metadata.getName(), metadata);
+        }
+        //컬럼 이름 -> {타입, nullable}
+        Map<String, int[]> actual = jdbcTemplate.execute((ConnectionCallback<Map<String, int[]>>) connection -> {
+            Map<String, int[]> columns = new HashMap<>();
+            try (ResultSet rs = connection.getMetaData().getColumns(null, path.getSchemaName(), path.getTableName(), null)) {
+                while (rs.next()) {
+                    columns.put(rs.getString("COLUMN_NAME"), new int[]{rs.getInt("DATA_TYPE"), rs.getInt("NULLABLE")});
+                }
+            }
+            return columns;
+        });
+
+        assertThat(actual.keySet()).as(path.getTableName()).containsExactlyInAnyOrderElementsOf(expected.keySet());
+        expected.forEach((name, metadata) -> {
+            assertThat(actual.get(name)[0]).as("%s.%s type", path.getTableName(), name).isEqualTo(metadata.getJdbcType());
+            assertThat(actual.get(name)[1] == DatabaseMetaData.columnNullable)
+                    .as("%s.%s nullable", path.getTableName(), name).isEqualTo(metadata.isNullable());
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.repository;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.config.CommittedFixture;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+//StatelessSession은 별도 커넥션이라 커밋된 데이터만 보인다.
+@SpringBootTest
+class MemberStatelessScannerTest {
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    MemberStatelessScanner memberStatelessScanner;
+
+    @BeforeEach
+    public void before(){
+        Team team = new Team("teamScan");
+        List<Object> entities = new ArrayList<>(List.of(team));
+        for (int i = 0; i < 25; i++) {
+            entities.add(new Member("scan" + i, i, team));
+        }
+        fixture.persist(entities.toArray());
+    }
+
+    @Test
+    public void scanInBatches(){
+        List<Integer> batchSizes = new ArrayList<>();
+        List<Member> scanned = new ArrayList<>();
+
+        MemberStatelessScanner.ScanResult result = memberStatelessScanner.scan(member.username.startsWith("scan"), 10, batch -> {
+            batchSizes.add(batch.size());
+            scanned.addAll(batch);
+        });
+
+        assertThat(result.getRows()).isEqualTo(25);
+        assertThat(result.getRowsPerSecond()).isPositive();
+        assertThat(batchSizes).containsExactly(10, 10, 5);
+        //지연 로딩 프록시 없이 team까지 읽혀 있다.
+        assertThat(scanned).allMatch(m -> Hibernate.isInitialized(m.getTeam()) && m.getTeam().getName().equals("teamScan"));
+    }
+}
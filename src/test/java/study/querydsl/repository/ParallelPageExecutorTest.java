@@ -0,0 +1,111 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelPageExecutorTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ParallelPageExecutor executor = new ParallelPageExecutor(new NoOpTransactionManager(), meterRegistry,
+            true, 2, 10, Duration.ofSeconds(2));
+
+    @AfterEach
+    public void after(){
+        executor.shutdown();
+    }
+
+    @Test
+    public void runConcurrently(){
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        Page<String> page = executor.getPage(() -> {
+            awaitOther(bothStarted);
+            return List.of("a", "b");
+        }, PageRequest.of(0, 2), () -> {
+            awaitOther(bothStarted);
+            return 10L;
+        });
+
+        //두 쿼리가 서로를 기다리므로 동시에 실행되지 않으면 끝나지 않는다.
+        assertThat(page.getContent()).containsExactly("a", "b");
+        assertThat(page.getTotalElements()).isEqualTo(10L);
+        assertThat(meterRegistry.get("member.page.parallel").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void failFast(){
+        assertThatThrownBy(() -> executor.getPage(() -> {
+            throw new IllegalStateException("content failed");
+        }, PageRequest.of(0, 2), () -> {
+            sleep(5000);
+            return 10L;
+        })).isInstanceOf(IllegalStateException.class).hasMessage("content failed");
+    }
+
+    @Test
+    public void timeout(){
+        ParallelPageExecutor shortTimeout = new ParallelPageExecutor(new NoOpTransactionManager(), meterRegistry,
+                true, 2, 10, Duration.ofMillis(100));
+        try {
+            assertThatThrownBy(() -> shortTimeout.getPage(() -> List.of("a"), PageRequest.of(0, 1), () -> {
+                sleep(5000);
+                return 10L;
+            })).isInstanceOf(QueryTimeoutException.class);
+        } finally {
+            shortTimeout.shutdown();
+        }
+    }
+
+    private void awaitOther(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            if (!latch.await(1, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("not concurrent");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
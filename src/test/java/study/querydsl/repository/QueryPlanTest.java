@@ -0,0 +1,168 @@
+package study.querydsl.repository;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.config.CommittedFixture;
+import study.querydsl.dto.MemberCursor;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 조건이 있는 검색 쿼리가 table scan 없이 인덱스를 타는지 H2 EXPLAIN으로 확인
+ * repository가 실제로 보낸 SQL(p6spy, 바인딩 값 포함)을 모아서 EXPLAIN 한다.
+ * 조건이 하나도 없는 검색은 전체를 읽는 것이 맞으므로 대상이 아니다.
+ * teamName은 TeamNameDictionary로 team_id 조건이 되는 경로(쓰기 트랜잭션 밖)를 검사하므로 커밋된 fixture를 사용한다.
+ */
+//SQL 주석의 JPQL(?1 등)에 p6spy가 바인딩 값을 넣지 않도록 주석은 끈다.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.use_sql_comments=false")
+class QueryPlanTest {
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+    }
+
+    static class SqlCapture extends JdbcEventListener {
+        private final List<String> statements = new ArrayList<>();
+        private volatile boolean capturing;
+
+        @Override
+        public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            if (capturing) {
+                synchronized (statements) {
+                    statements.add(statementInformation.getSqlWithValues());
+                }
+            }
+        }
+
+        List<String> capture(Runnable queries) {
+            synchronized (statements) {
+                statements.clear();
+            }
+            capturing = true;
+            try {
+                queries.run();
+            } finally {
+                capturing = false;
+            }
+            synchronized (statements) {
+                return new ArrayList<>(statements);
+            }
+        }
+    }
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before(){
+        Team team = new Team("teamPlan");
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            members.add(new Member("plan" + i, i, team));
+        }
+        List<Object> entities = new ArrayList<>(List.of(team));
+        entities.addAll(members);
+        fixture.persist(entities.toArray());
+        members.forEach(planMember -> memberIds.add(planMember.getId()));
+    }
+
+    @Test
+    public void searchUsesIndexes(){
+        for (MemberSearchCondition condition : conditions()) {
+            List<String> statements = sqlCapture.capture(() -> {
+                memberRepository.search(condition);
+                memberRepository.searchPageComlex(condition, PageRequest.of(0, 1));
+                memberRepository.searchPageSimple(condition, PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "age")));
+                memberRepository.searchFields(condition, MemberField.parse("username"));
+                memberRepository.searchByCursor(condition, MemberCursor.first(MemberCursor.SortKey.ID), 5);
+                memberJpaRepository.searchRendered(condition);
+            });
+
+            assertThat(statements).as("%s", condition).isNotEmpty();
+            assertNoTableScan(statements);
+        }
+    }
+
+    @Test
+    public void findAllByIdsUsesPrimaryKey(){
+        List<String> statements = sqlCapture.capture(() -> memberRepository.findAllByIds(memberIds));
+
+        assertThat(statements).isNotEmpty();
+        assertNoTableScan(statements);
+    }
+
+    private void assertNoTableScan(List<String> statements) {
+        Set<String> selects = new LinkedHashSet<>();
+        for (String sql : statements) {
+            if (sql.toLowerCase().contains("select")) {
+                selects.add(sql);
+            }
+        }
+        for (String sql : selects) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertThat(plan).as("EXPLAIN %s", sql).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    private static List<MemberSearchCondition> conditions() {
+        MemberSearchCondition username = new MemberSearchCondition();
+        username.setUsername("plan3");
+
+        MemberSearchCondition teamName = new MemberSearchCondition();
+        teamName.setTeamName("teamPlan");
+
+        MemberSearchCondition teamAge = new MemberSearchCondition();
+        teamAge.setTeamName("teamPlan");
+        teamAge.setAgeGoe(5);
+        teamAge.setAgeLoe(10);
+
+        MemberSearchCondition age = new MemberSearchCondition();
+        age.setAgeGoe(5);
+        age.setAgeLoe(10);
+
+        MemberSearchCondition usernameTeam = new MemberSearchCondition();
+        usernameTeam.setUsername("plan3");
+        usernameTeam.setTeamName("teamPlan");
+
+        return Arrays.asList(username, teamName, teamAge, age, usernameTeam);
+    }
+}
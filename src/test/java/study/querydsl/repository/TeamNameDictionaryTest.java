@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.config.CommittedFixture;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TeamNameDictionaryTest {
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    TeamNameDictionary teamNameDictionary;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    Long teamId;
+
+    @BeforeEach
+    public void before(){
+        Team team = new Team("teamDict");
+        fixture.persist(team, new Member("dict1", 10, team), new Member("dict2", 20, team));
+        teamId = team.getId();
+    }
+
+    @Test
+    public void insertAfterCommit(){
+        assertThat(teamNameDictionary.teamIdsOf("teamDict")).containsExactly(teamId);
+        assertThat(teamNameDictionary.teamIdsOf("teamDict-none")).isNull(); //사전에 없는 이름은 team.name으로 조회
+    }
+
+    @Test
+    public void deleteAfterCommit(){
+        Team other = new Team("teamDict");
+        fixture.persist(other);
+        Long otherId = other.getId();
+        assertThat(teamNameDictionary.teamIdsOf("teamDict")).containsExactlyInAnyOrder(teamId, otherId);
+
+        fixture.executeWithoutResult(em -> em.remove(em.find(Team.class, otherId)));
+
+        assertThat(teamNameDictionary.teamIdsOf("teamDict")).containsExactly(teamId);
+    }
+
+    @Test
+    public void deletedName(){
+        Team gone = new Team("teamDict-gone");
+        fixture.persist(gone);
+        Long goneId = gone.getId();
+
+        fixture.executeWithoutResult(em -> em.remove(em.find(Team.class, goneId)));
+
+        assertThat(teamNameDictionary.teamIdsOf("teamDict-gone")).isEmpty(); //삭제된 이름만 빈 Set
+    }
+
+    @Test
+    public void missFallsBackToTeamName(){
+        //리스너를 거치지 않고 들어온 Team (사전에 없음)
+        fixture.executeWithoutResult(em -> em.createNativeQuery("insert into team (id, name) values (-100, 'teamDict-native')").executeUpdate());
+        fixture.deleteAfterEach("delete from Member m where m.team.id = -100");
+        fixture.deleteAfterEach("delete from Team t where t.id = -100");
+        fixture.executeWithoutResult(em -> em.persist(new Member("dictNative", 30, em.find(Team.class, -100L))));
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamDict-native");
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("dictNative");
+    }
+
+    @Test
+    public void notUsedInWriteTransaction(){
+        fixture.executeWithoutResult(em -> assertThat(teamNameDictionary.teamIdsOf("teamDict")).isNull());
+    }
+
+    @Test
+    public void searchByTeamId(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamDict");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        Page<MemberTeamDto> page = memberRepository.searchPageComlex(condition, PageRequest.of(0, 1));
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("dict1", "dict2");
+        assertThat(result).extracting("teamName").containsOnly("teamDict");
+        assertThat(page.getTotalElements()).isEqualTo(2L);
+    }
+
+    @Test
+    public void unknownTeamName(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamDict-none");
+
+        assertThat(memberRepository.search(condition)).isEmpty();
+        assertThat(memberRepository.searchPageSimple(condition, PageRequest.of(0, 10)).getTotalElements()).isZero();
+    }
+}
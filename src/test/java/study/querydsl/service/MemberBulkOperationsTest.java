@@ -0,0 +1,92 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.config.CommittedFixture;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+//구간마다 커밋하므로 트랜잭션 밖에서 호출한다.
+@SpringBootTest(properties = "member.bulk-operation.chunk-size=2")
+class MemberBulkOperationsTest {
+
+    @RegisterExtension
+    CommittedFixture fixture = new CommittedFixture();
+
+    @Autowired
+    MemberBulkOperations memberBulkOperations;
+
+    @BeforeEach
+    public void before(){
+        List<Object> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(new Member("bulkOp" + i, 10 + i));
+        }
+        fixture.persist(members.toArray()); //한 트랜잭션 -> 연속된 id
+    }
+
+    @Test
+    public void updateInChunks(){
+        List<MemberBulkOperations.Progress> progresses = new ArrayList<>();
+
+        long updated = memberBulkOperations.update(member.username.startsWith("bulkOp").and(member.age.lt(13)),
+                clause -> clause.set(member.age, member.age.add(100)),
+                progresses::add);
+
+        assertThat(updated).isEqualTo(3);
+        //연속된 id 3개 -> 구간 2개 (chunk-size 2)
+        assertThat(progresses).extracting("chunk").containsExactly(1L, 2L);
+        assertThat(progresses.get(progresses.size() - 1).getRows()).isEqualTo(3);
+
+        List<Integer> ages = fixture.execute(em -> em.createQuery(
+                        "select m.age from Member m where m.username like 'bulkOp%' order by m.id", Integer.class)
+                .getResultList());
+        assertThat(ages).containsExactly(110, 111, 112, 13, 14);
+    }
+
+    @Test
+    public void sparseIdsInOneChunk(){
+        List<MemberBulkOperations.Progress> progresses = new ArrayList<>();
+
+        //첫 번째와 마지막 id만 대상 -> id 범위가 아니라 row 수로 나누므로 구간 1개
+        long updated = memberBulkOperations.update(member.username.startsWith("bulkOp").and(member.age.in(10, 14)),
+                clause -> clause.set(member.age, member.age.add(100)),
+                progresses::add);
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(progresses).extracting("chunk").containsExactly(1L);
+    }
+
+    @Test
+    public void rejectJoinPath(){
+        assertThatThrownBy(() -> memberBulkOperations.delete(member.team.name.eq("teamA")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void deleteInChunks(){
+        long deleted = memberBulkOperations.delete(member.username.startsWith("bulkOp").and(member.age.goe(13)));
+
+        assertThat(deleted).isEqualTo(2);
+        Long remaining = fixture.execute(em -> em.createQuery(
+                        "select count(m) from Member m where m.username like 'bulkOp%'", Long.class)
+                .getSingleResult());
+        assertThat(remaining).isEqualTo(3L);
+    }
+
+    @Test
+    public void rejectInsideTransaction(){
+        assertThatThrownBy(() -> fixture.executeWithoutResult(em ->
+                memberBulkOperations.delete(member.username.startsWith("bulkOp"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @Test
+    public void exportCsv() throws Exception {
+        Team team = new Team("teamExport");
+        em.persist(team);
+        em.persist(new Member("export1", 10, team));
+        em.persist(new Member("export,2", 20, team));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamExport");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = memberExportService.export(condition, MemberExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("memberId,username,age,teamId,teamName");
+        assertThat(lines[2]).contains("\"export,2\",20");
+    }
+
+    @Test
+    public void exportCsvQuotesLineBreaks() throws Exception {
+        Team team = new Team("teamExport");
+        em.persist(team);
+        em.persist(new Member("export\r3", 30, team));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamExport");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        memberExportService.export(condition, MemberExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("\"export\r3\",30");
+    }
+
+    @Test
+    public void exportNdjson() throws Exception {
+        Team team = new Team("teamExport");
+        em.persist(team);
+        em.persist(new Member("export1", 10, team));
+        em.flush();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamExport");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        memberExportService.export(condition, MemberExportService.Format.NDJSON, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .contains("\"username\":\"export1\"")
+                .contains("\"teamName\":\"teamExport\"");
+    }
+}
@@ -0,0 +1,34 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+//실제 DB(H2)에서 예상 row 수가 count(*)가 아니라 테이블 통계에서 나오는지 확인
+@SpringBootTest
+class MemberQueryCostGuardStatsTest {
+
+    @SpyBean
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberQueryCostGuard memberQueryCostGuard;
+
+    @Test
+    public void estimateFromStatistics(){
+        long estimated = memberQueryCostGuard.estimateRows(new MemberSearchCondition());
+
+        assertThat(estimated).isGreaterThanOrEqualTo(0);
+        verify(jdbcTemplate).queryForObject(argThat((String sql) -> sql.contains("ROW_COUNT_ESTIMATE")), eq(Long.class), eq("MEMBER"));
+        verify(jdbcTemplate, never()).queryForObject(argThat((String sql) -> sql.startsWith("select count(*)")), eq(Long.class));
+    }
+}
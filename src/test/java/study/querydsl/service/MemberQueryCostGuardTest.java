@@ -0,0 +1,117 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MemberQueryCostGuardTest {
+
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void before(){
+        //회원 10000명, 팀 100개
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("MEMBER"))).thenReturn(10000L);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("TEAM"))).thenReturn(100L);
+    }
+
+    @Test
+    public void unpagedNeedsSelectivePredicate(){
+        MemberQueryCostGuard guard = guard(MemberQueryCostGuard.Oversize.CLAMP);
+
+        assertThatThrownBy(() -> guard.checkUnpaged(new MemberSearchCondition()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("10000");
+
+        MemberSearchCondition teamName = new MemberSearchCondition();
+        teamName.setTeamName("teamA");
+        guard.checkUnpaged(teamName); //10000 / 100 = 100건
+
+        MemberSearchCondition username = new MemberSearchCondition();
+        username.setUsername("member1");
+        guard.checkUnpaged(username);
+
+        assertThat(guard.estimateRows(teamName)).isEqualTo(100);
+        //통계는 캐시된다.
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), eq("MEMBER"));
+        assertThat(meterRegistry.get("member.search.cost-guard").tag("check", "unpaged").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void clampPageSize(){
+        MemberQueryCostGuard guard = guard(MemberQueryCostGuard.Oversize.CLAMP);
+        Pageable pageable = PageRequest.of(2, 500, Sort.by("age"));
+
+        Pageable checked = guard.checkPage(new MemberSearchCondition(), pageable);
+
+        assertThat(checked.getPageSize()).isEqualTo(100);
+        assertThat(checked.getPageNumber()).isEqualTo(2);
+        assertThat(checked.getSort()).isEqualTo(Sort.by("age"));
+        assertThat(guard.checkPage(new MemberSearchCondition(), PageRequest.of(0, 20)).getPageSize()).isEqualTo(20);
+        assertThat(guard.checkSize(new MemberSearchCondition(), 1000)).isEqualTo(100);
+    }
+
+    @Test
+    public void rejectPageSize(){
+        MemberQueryCostGuard guard = guard(MemberQueryCostGuard.Oversize.REJECT);
+
+        assertThatThrownBy(() -> guard.checkPage(new MemberSearchCondition(), PageRequest.of(0, 101)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(guard.checkPage(new MemberSearchCondition(), PageRequest.of(0, 100)).getPageSize()).isEqualTo(100);
+    }
+
+    @Test
+    public void ageRangeWidth(){
+        MemberQueryCostGuard guard = guard(MemberQueryCostGuard.Oversize.CLAMP);
+
+        MemberSearchCondition narrow = new MemberSearchCondition();
+        narrow.setAgeGoe(20);
+        narrow.setAgeLoe(40);
+        guard.checkPage(narrow, PageRequest.of(0, 20));
+
+        MemberSearchCondition wide = new MemberSearchCondition();
+        wide.setAgeGoe(0);
+        wide.setAgeLoe(100);
+        assertThatThrownBy(() -> guard.checkPage(wide, PageRequest.of(0, 20)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        MemberSearchCondition open = new MemberSearchCondition();
+        open.setAgeGoe(20);
+        assertThatThrownBy(() -> guard.checkPage(open, PageRequest.of(0, 20)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        //팀 조건이 있으면 나이 범위는 제한하지 않는다.
+        wide.setTeamName("teamA");
+        guard.checkPage(wide, PageRequest.of(0, 20));
+    }
+
+    @Test
+    public void disabled(){
+        MemberQueryCostGuard guard = new MemberQueryCostGuard(jdbcTemplate, meterRegistry, false, 100,
+                MemberQueryCostGuard.Oversize.REJECT, 1000, 50, Duration.ofMinutes(1));
+
+        guard.checkUnpaged(new MemberSearchCondition());
+        assertThat(guard.checkPage(new MemberSearchCondition(), PageRequest.of(0, 500)).getPageSize()).isEqualTo(500);
+    }
+
+    private MemberQueryCostGuard guard(MemberQueryCostGuard.Oversize oversize) {
+        return new MemberQueryCostGuard(jdbcTemplate, meterRegistry, true, 100, oversize, 1000, 50, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,169 @@
+package study.querydsl.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberField;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSearchCoalescerTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    public void after(){
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shareInFlightResult() throws Exception {
+        MemberSearchCoalescer coalescer = coalescer(Duration.ofSeconds(5), 100);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+
+        MemberSearchCondition condition = condition("teamA", "");
+        Future<String> leader = executor.submit(() -> coalescer.coalesce("search", condition, null, () -> {
+            queries.incrementAndGet();
+            await(release);
+            return "result";
+        }));
+        awaitCount("leader", 1);
+
+        //빈 username은 null과 같은 조건
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            followers.add(executor.submit(() -> coalescer.coalesce("search", condition("teamA", null), null, () -> {
+                queries.incrementAndGet();
+                return "other";
+            })));
+        }
+        awaitWaiting(5);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        for (Future<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        }
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(count("follower")).isEqualTo(5);
+
+        //끝난 뒤에 온 요청은 새로 조회한다.
+        assertThat(coalescer.coalesce("search", condition, null, () -> "next")).isEqualTo("next");
+    }
+
+    @Test
+    public void boundedWait() throws Exception {
+        MemberSearchCoalescer coalescer = coalescer(Duration.ofMillis(100), 100);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> coalescer.coalesce("search", condition("teamB", null), null, () -> await(release)));
+        awaitCount("leader", 1);
+
+        String result = coalescer.coalesce("search", condition("teamB", null), null, () -> "own");
+        release.countDown();
+
+        assertThat(result).isEqualTo("own");
+        assertThat(count("timeout")).isEqualTo(1);
+    }
+
+    @Test
+    public void limitWaitersPerKey() throws Exception {
+        MemberSearchCoalescer coalescer = coalescer(Duration.ofSeconds(5), 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> coalescer.coalesce("search", condition("teamC", null), null, () -> await(release)));
+        awaitCount("leader", 1);
+
+        String result = coalescer.coalesce("search", condition("teamC", null), null, () -> "own");
+        release.countDown();
+
+        assertThat(result).isEqualTo("own");
+        assertThat(count("overflow")).isEqualTo(1);
+    }
+
+    @Test
+    public void fieldsInKey() throws Exception {
+        MemberSearchCoalescer coalescer = coalescer(Duration.ofSeconds(5), 100);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> coalescer.coalesce("search", condition("teamE", null), MemberField.parse("username"), null, () -> await(release)));
+        awaitCount("leader", 1);
+
+        //fields가 다르면 다른 키
+        String other = coalescer.coalesce("search", condition("teamE", null), MemberField.parse("age"), null, () -> "own");
+        release.countDown();
+
+        assertThat(other).isEqualTo("own");
+        assertThat(count("leader")).isEqualTo(2);
+    }
+
+    @Test
+    public void shareFailure() throws Exception {
+        MemberSearchCoalescer coalescer = coalescer(Duration.ofSeconds(5), 100);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> coalescer.coalesce("search", condition("teamD", null), null, () -> {
+            await(release);
+            throw new IllegalStateException("db down");
+        }));
+        awaitCount("leader", 1);
+        Future<String> follower = executor.submit(() -> coalescer.coalesce("search", condition("teamD", null), null, () -> "own"));
+        awaitWaiting(1);
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("db down");
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("db down");
+    }
+
+    private MemberSearchCoalescer coalescer(Duration maxWait, int maxWaiters) {
+        return new MemberSearchCoalescer(null, null, meterRegistry, true, maxWait, maxWaiters);
+    }
+
+    private MemberSearchCondition condition(String teamName, String username) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        condition.setUsername(username);
+        return condition;
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("member.search.coalesce", "operation", "search", "result", result).count();
+    }
+
+    private void awaitCount(String result, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (count(result) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitWaiting(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("member.search.coalesce.waiting").gauge().value() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "result";
+    }
+}